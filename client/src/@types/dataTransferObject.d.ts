@@ -12,6 +12,7 @@ interface SocketGameState {
 
 	playerID?: string;
 	onlinePlayers?: string[];
+	outOfRangeNpcs?: string[];
 }
 
 interface SocketTalkEvent {
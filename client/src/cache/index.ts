@@ -28,6 +28,13 @@ export default class Cache {
 		return url;
 	}
 
+	public static async getAssetBytes(assetName: string): Promise<Uint8Array | null> {
+		const cache = await caches.open(this.cacheName);
+		const response = await cache.match(assetName.toLowerCase());
+		if (!response) return null;
+		return new Uint8Array(await response.arrayBuffer());
+	}
+
 	public static async getCacheNumber(): Promise<number | null> {
 		const cache = await caches?.open(this.cacheName);
 		if (!cache) {
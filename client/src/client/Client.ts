@@ -4,11 +4,12 @@ import Login, { LOGIN_REQUEST } from '../login/Login';
 import Cache from '../cache/index';
 import Player from '../entity/player/Player';
 import Npc from '../entity/npcs/Npc';
-import pako from 'pako';
 import AudioManager from '../managers/AudioManager';
 import { canvas, canvas2d } from '../graphics/2DCanvas';
 import { World } from '../world/World';
 import { Item } from '../item/Item';
+import StreamInflater from '../net/StreamInflater';
+import DictionaryInflater from '../net/DictionaryInflater';
 
 const UPDATE_REQUEST = {
 	CHECK_FOR_UPDATES: 1,
@@ -19,6 +20,12 @@ const UPDATE_RESPONSE = {
 	UPDATE_AVAILABLE: 2,
 };
 
+// First byte of every game state frame
+const FRAME = {
+	RAW: 0,
+	DEFLATE: 1,
+};
+
 export default class Client {
 	// simulation
 	private targetFPS = 50;
@@ -149,27 +156,32 @@ export default class Client {
 		setTimeout(async (): Promise<void> => {
 			if (!this.world) return;
 			this.world.setLoading(10, 'Connecting to server...');
-			const socket = await this.connectToGameServer(loginToken);
+			// The dictionary ships with the asset cache, the server only uses it
+			// when our cache version matches its own
+			const dictionary = await Cache.getAssetBytes('state.dict');
+			const socket = await this.connectToGameServer(loginToken, dictionary !== null);
 			this.world.setLoading(75, 'Loading world...');
 
 			this.world.setSocket(socket);
+			const inflater = dictionary ? new DictionaryInflater(dictionary) : new StreamInflater();
+			const decoder = new TextDecoder();
 
-			socket.onmessage = async (event): Promise<void> => {
+			// Inflated right away, the stream inflater needs frames in the order
+			// they were sent
+			socket.onmessage = (event): void => {
 				if (reconnectInterval) clearInterval(reconnectInterval);
-				try {
+				if (typeof event.data === 'string') {
 					if (event.data == 'pong') {
 						const endTime = Date.now();
 						this.latency = endTime - this.lastPingTime;
-						return;
 					}
-				} catch (error) {
-					console.error('Error parsing event data:', error);
+					return;
 				}
 
-				const arrayBuffer = await event.data.arrayBuffer();
-				this.lastPacketSize = arrayBuffer.byteLength;
-				const compressedData = new Uint8Array(arrayBuffer);
-				const decompressedData = pako.inflate(compressedData, { to: 'string' });
+				const frame = new Uint8Array(event.data as ArrayBuffer);
+				this.lastPacketSize = frame.byteLength;
+				const body = frame.subarray(1);
+				const decompressedData = frame[0] === FRAME.DEFLATE ? inflater.inflate(body) : decoder.decode(body);
 				const gameData: SocketGameState = JSON.parse(decompressedData);
 				if (gameData.playerID) {
 					if (!this.world) return;
@@ -193,9 +205,11 @@ export default class Client {
 		this.world?.gameSocket?.send(JSON.stringify({ action: 'ping', time: startTime }));
 	}
 
-	async connectToGameServer(loginToken: string): Promise<WebSocket> {
+	async connectToGameServer(loginToken: string, useDictionary: boolean): Promise<WebSocket> {
+		const compression = useDictionary ? `dictionary&dictionary=${this.cacheNumber}` : 'stream';
 		return new Promise((resolve, reject) => {
-			const socket = new WebSocket(`${GAME_SERVER_ADDRESS}/?loginToken=${loginToken}`);
+			const socket = new WebSocket(`${GAME_SERVER_ADDRESS}/?loginToken=${loginToken}&compression=${compression}`);
+			socket.binaryType = 'arraybuffer';
 			socket.onopen = (): void => {
 				this.login?.destroy();
 				resolve(socket);
@@ -302,7 +316,7 @@ export default class Client {
 
 	private updateGameState(gameData: SocketGameState): void {
 		if (!this.world) return;
-		const { players, npcs, chatMessages, onlinePlayers, items } = gameData;
+		const { players, npcs, chatMessages, onlinePlayers, items, outOfRangeNpcs } = gameData;
 
 		// remove players that are no longer online
 		this.world.players.forEach(player => {
@@ -349,6 +363,16 @@ export default class Client {
 			}
 		});
 
+		// remove npcs that are no longer in our area
+		if (outOfRangeNpcs) {
+			this.world.npcs.forEach(npc => {
+				if (outOfRangeNpcs.includes(npc.entityID)) {
+					this.world?.scene.remove(npc.model);
+				}
+			});
+			this.world.npcs = this.world.npcs.filter(npc => !outOfRangeNpcs.includes(npc.entityID));
+		}
+
 		this.world.chatMessages = [
 			...this.world.chatMessages,
 			...(chatMessages?.filter(chatMessage => {
@@ -0,0 +1,17 @@
+import pako from 'pako';
+
+// Counterpart of the server's dictionary compression. Every message is a
+// complete zlib stream, the dictionary is only used when the stream asks for
+// it, so plain messages from a server without the dictionary inflate as well.
+export default class DictionaryInflater {
+	private dictionary: Uint8Array;
+	private decoder = new TextDecoder();
+
+	constructor(dictionary: Uint8Array) {
+		this.dictionary = dictionary;
+	}
+
+	public inflate(data: Uint8Array): string {
+		return this.decoder.decode(pako.inflate(data, { dictionary: this.dictionary }));
+	}
+}
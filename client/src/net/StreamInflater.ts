@@ -0,0 +1,47 @@
+import pako from 'pako';
+
+// Counterpart of the server's per-connection deflater. Every message ends with
+// a sync flush, so it can be inflated on its own while the window carries over
+// from earlier messages.
+export default class StreamInflater {
+	private inflator = new pako.Inflate();
+	private chunks: Uint8Array[] = [];
+	private decoder = new TextDecoder();
+
+	constructor() {
+		this.inflator.onData = (chunk): void => {
+			this.chunks.push(chunk as Uint8Array);
+		};
+	}
+
+	public inflate(data: Uint8Array): string {
+		this.inflator.push(data, pako.constants.Z_SYNC_FLUSH);
+		if (this.inflator.err) {
+			throw new Error(this.inflator.msg);
+		}
+
+		// pako only hands out full output buffers, the rest of a sync flushed
+		// message is still waiting in the current one. That buffer is not part
+		// of pako's typed API, fail loudly if a pako update changes it
+		const strm = (this.inflator as any).strm;
+		if (!strm || !(strm.output instanceof Uint8Array) || typeof strm.next_out !== 'number') {
+			throw new Error('Unsupported pako version, cannot read the inflate output buffer');
+		}
+		if (strm.next_out > 0 && strm.avail_out > 0) {
+			this.chunks.push(strm.output.slice(0, strm.next_out));
+			strm.next_out = 0;
+			strm.avail_out = strm.output.length;
+		}
+
+		const length = this.chunks.reduce((total, chunk) => total + chunk.length, 0);
+		const result = new Uint8Array(length);
+		let offset = 0;
+		for (const chunk of this.chunks) {
+			result.set(chunk, offset);
+			offset += chunk.length;
+		}
+		this.chunks = [];
+
+		return this.decoder.decode(result);
+	}
+}
@@ -3,6 +3,9 @@ package com.g8e;
 import java.io.IOException;
 import com.g8e.db.migrations.MigrationRunner;
 import com.g8e.gameserver.GameServer;
+import com.g8e.gameserver.network.compressing.CompressionBenchmark;
+import com.g8e.gameserver.network.compressing.DictionaryBuilder;
+import com.g8e.gameserver.pathfinding.PathfinderBenchmark;
 import com.g8e.loginserver.LoginServer;
 import com.g8e.loginserver.util.LoginConstants;
 import com.g8e.registerServer.RegisterServer;
@@ -18,6 +21,21 @@ public class G8e {
                 MigrationRunner.runMigrations();
                 return;
             }
+
+            if (args[0].equals("benchmark-pathfinding")) {
+                PathfinderBenchmark.run();
+                return;
+            }
+
+            if (args[0].equals("build-compression-dictionary")) {
+                DictionaryBuilder.run(args);
+                return;
+            }
+
+            if (args[0].equals("benchmark-compression")) {
+                CompressionBenchmark.run(args);
+                return;
+            }
         }
 
         try {
@@ -4,10 +4,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 
 import com.g8e.db.models.DBAccount;
 import com.g8e.db.models.DBPlayer;
-import com.g8e.gameserver.util.SkillUtils;
 import com.google.gson.Gson;
 
 public class CommonQueries {
@@ -66,89 +66,54 @@ public class CommonQueries {
 
     }
 
-    public static void savePlayerPositionByAccountId(int accountId, int x, int y) throws SQLException {
-        String query = "UPDATE players SET world_x = ?, world_y = ? WHERE account_id = ?";
-        try (Connection conn = Database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, x);
-            stmt.setInt(2, y);
-            stmt.setInt(3, accountId);
-            stmt.executeUpdate();
-        }
-    }
-
-    public static void savePlayerXpByAccountId(int accountId, int skill, int xp) throws SQLException {
-        String skillName = SkillUtils.getSkillNameByNumber(skill);
-        String query = "UPDATE players SET " + skillName + "_experience = ? WHERE account_id = ?";
-        try (Connection conn = Database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, xp);
-            stmt.setInt(2, accountId);
-            stmt.executeUpdate();
-        }
-    }
-
-    public static void savePlayerQuestProgressByAccountId(int accountId, String questProgress) throws SQLException {
-        String query = "UPDATE players SET quest_progress = ? WHERE account_id = ?";
-        try (Connection conn = Database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, questProgress);
-            stmt.setInt(2, accountId);
-            stmt.executeUpdate();
-        }
-    }
-
-    public static void savePlayerInventoryByAccountId(int accountId, String inventory, String inventoryAmounts)
-            throws SQLException {
-        String query = "UPDATE players SET inventory = ?, inventoryAmounts = ? WHERE account_id = ?";
-        try (Connection conn = Database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, inventory);
-            stmt.setString(2, inventoryAmounts);
-            stmt.setInt(3, accountId);
-            stmt.executeUpdate();
-        }
-    }
-
-    public static void savePlayerWieldablesByAccountId(int accountId, Integer weaponID, Integer shieldID)
-            throws SQLException {
-        String query = "UPDATE players SET weapon = ?, shield = ? WHERE account_id = ?";
-        try (Connection conn = Database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            if (weaponID != null) {
-                stmt.setInt(1, weaponID);
-            } else {
-                stmt.setNull(1, java.sql.Types.INTEGER);
+    // One UPDATE per row image, sent as a single batch in one transaction
+    public static void savePlayers(Collection<DBPlayer> players) throws SQLException {
+        String query = "UPDATE players SET world_x = ?, world_y = ?, weapon = ?, shield = ?, inventory = ?, "
+                + "inventoryAmounts = ?, quest_progress = ?, attack_experience = ?, strength_experience = ?, "
+                + "defence_experience = ?, hitpoints_experience = ?, skin_color = ?, hair_color = ?, "
+                + "shirt_color = ?, pants_color = ? WHERE account_id = ?";
+        Gson gson = new Gson();
+
+        try (Connection conn = Database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                for (DBPlayer player : players) {
+                    stmt.setInt(1, player.getWorldX());
+                    stmt.setInt(2, player.getWorldY());
+                    setNullableInt(stmt, 3, player.getWeapon());
+                    setNullableInt(stmt, 4, player.getShield());
+                    stmt.setString(5, gson.toJson(player.getInventory()));
+                    stmt.setString(6, gson.toJson(player.getInventoryAmounts()));
+                    stmt.setString(7, gson.toJson(player.getQuestProgress()));
+                    stmt.setInt(8, player.getAttackExperience());
+                    stmt.setInt(9, player.getStrengthExperience());
+                    stmt.setInt(10, player.getDefenceExperience());
+                    stmt.setInt(11, player.getHitpointsExperience());
+                    stmt.setInt(12, player.getSkinColor());
+                    stmt.setInt(13, player.getHairColor());
+                    stmt.setInt(14, player.getShirtColor());
+                    stmt.setInt(15, player.getPantsColor());
+                    stmt.setInt(16, player.getAccountID());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
-
-            if (shieldID != null) {
-                stmt.setInt(2, shieldID);
-            } else {
-                stmt.setNull(2, java.sql.Types.INTEGER);
-            }
-
-            // Account ID is the last parameter (10th)
-            stmt.setInt(3, accountId);
-
-            stmt.executeUpdate();
         }
     }
 
-    public static void savePlayerAppearanceByAccountId(int accountId, int skinColor, int hairColor, int shirtColor,
-            int pantsColor)
-            throws SQLException {
-        String query = "UPDATE players SET skin_color = ?, hair_color = ?, shirt_color = ?, pants_color = ? WHERE account_id = ?";
-        try (Connection conn = Database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, skinColor);
-            stmt.setInt(2, hairColor);
-            stmt.setInt(3, shirtColor);
-            stmt.setInt(4, pantsColor);
-            stmt.setInt(5, accountId);
-            stmt.executeUpdate();
+    private static void setNullableInt(PreparedStatement stmt, int index, Integer value) throws SQLException {
+        if (value != null) {
+            stmt.setInt(index, value);
+        } else {
+            stmt.setNull(index, java.sql.Types.INTEGER);
         }
-
     }
 
 }
@@ -0,0 +1,129 @@
+package com.g8e.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.g8e.db.models.DBPlayer;
+import com.g8e.gameserver.util.Metrics;
+import com.g8e.util.Logger;
+
+/**
+ * Write-behind storage for players. The game hands over complete row images,
+ * only the latest image per account is kept and a background thread writes
+ * them in one batch every interval, so the database is never waited on
+ * during a tick.
+ */
+public class PlayerWriter {
+    private final Map<Integer, DBPlayer> pending = new ConcurrentHashMap<>();
+    private final int intervalMs;
+    private volatile ScheduledExecutorService executor;
+
+    public PlayerWriter(int intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "player-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Replaces any image of the same account that has not been written yet
+    public void enqueue(DBPlayer player) {
+        pending.put(player.getAccountID(), player);
+        Metrics.setGauge("persistence.pendingRows", pending.size());
+    }
+
+    // Writes everything queued so far on the writer thread without waiting
+    public synchronized void flushLater() {
+        if (executor != null) {
+            executor.execute(this::flush);
+        }
+    }
+
+    // Writes everything queued so far and waits for it, used before loading a
+    // player so a quick reconnect does not read an older row
+    public void flushNow() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            flush();
+            return;
+        }
+        try {
+            current.submit(this::flush).get();
+        } catch (RejectedExecutionException e) {
+            // Shutting down, write on this thread instead
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Logger.printError("Player flush failed: " + e.getMessage());
+        }
+    }
+
+    // Writes whatever is still queued, later enqueues are written directly.
+    // The lock is not held while waiting, queued flushes need it to finish
+    public void shutdown() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = executor;
+            executor = null;
+            if (current != null) {
+                current.shutdown();
+            }
+        }
+
+        if (current != null) {
+            try {
+                current.awaitTermination(intervalMs * 2L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<DBPlayer> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Integer, DBPlayer> entry : pending.entrySet()) {
+            // Only removed if no newer image replaced it meanwhile
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            CommonQueries.savePlayers(batch);
+            Metrics.add("persistence.writtenRows", batch.size());
+            Metrics.increment("persistence.batches");
+        } catch (SQLException e) {
+            Logger.printError("Failed to save " + batch.size() + " players: " + e.getMessage());
+            Metrics.increment("persistence.failures");
+            // Retried with the next flush unless a newer image arrived
+            for (DBPlayer player : batch) {
+                pending.putIfAbsent(player.getAccountID(), player);
+            }
+        }
+        Metrics.setGauge("persistence.flushMicros", (System.nanoTime() - start) / 1000);
+        Metrics.setGauge("persistence.pendingRows", pending.size());
+    }
+}
@@ -12,6 +12,7 @@ import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
 import com.g8e.gameserver.network.WebSocketEventsHandler;
+import com.g8e.gameserver.util.Metrics;
 import com.g8e.util.Logger;
 
 import io.github.cdimascio.dotenv.Dotenv;
@@ -31,6 +32,8 @@ public class GameServer extends WebSocketServer {
         try {
             start();
             world.start();
+            // Writes out online players when the process is stopped
+            Runtime.getRuntime().addShutdownHook(new Thread(world::stop, "world-shutdown"));
             handleConsoleInput();
         } catch (IOException | InterruptedException e) {
             e.printStackTrace();
@@ -41,6 +44,14 @@ public class GameServer extends WebSocketServer {
         try (BufferedReader sysin = new BufferedReader(new InputStreamReader(System.in))) {
             String input;
             while ((input = sysin.readLine()) != null && !input.equals("exit")) {
+                if (input.equals("metrics")) {
+                    Logger.printInfo("Metrics:\n" + Metrics.dump());
+                    continue;
+                }
+                if (input.equals("profile")) {
+                    Logger.printInfo("Tick profile:\n" + world.tickProfiler.summary());
+                    continue;
+                }
                 broadcast(input);
             }
         }
@@ -62,7 +73,7 @@ public class GameServer extends WebSocketServer {
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
         Logger.printInfo(conn + " has disconnected");
-        world.removePlayer(conn);
+        world.queueLeave(conn);
     }
 
     @Override
@@ -0,0 +1,113 @@
+package com.g8e.gameserver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.g8e.gameserver.enums.TickOverrunPolicy;
+import com.g8e.gameserver.util.Metrics;
+import com.g8e.util.Logger;
+
+/**
+ * Runs the world tick on fixed boundaries of the monotonic clock. The next
+ * boundary is computed from the previous one and not from when the tick
+ * finished, so tick duration does not add up as drift.
+ */
+public class TickScheduler implements Runnable {
+    private final Runnable tick;
+    private final long periodNanos;
+    private final TickOverrunPolicy overrunPolicy;
+    private final int maxCatchUp;
+
+    private volatile boolean running = true;
+    private volatile long tickNumber = 0;
+    private volatile long tickStartNanos = System.nanoTime();
+
+    public TickScheduler(Runnable tick, long periodMillis, TickOverrunPolicy overrunPolicy, int maxCatchUp) {
+        this.tick = tick;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.overrunPolicy = overrunPolicy;
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + periodNanos;
+
+        while (running) {
+            sleepUntil(nextTick);
+            if (!running) {
+                break;
+            }
+
+            long tickStart = System.nanoTime();
+            tickStartNanos = tickStart;
+            try {
+                tick.run();
+            } catch (RuntimeException e) {
+                Logger.printError("Tick " + tickNumber + " failed: " + e.getMessage());
+            }
+            long tickEnd = System.nanoTime();
+            tickNumber++;
+
+            long duration = tickEnd - tickStart;
+            Metrics.setGauge("tick.number", tickNumber);
+            Metrics.setGauge("tick.latenessMicros", (tickStart - nextTick) / 1000);
+            Metrics.setGauge("tick.durationMicros", duration / 1000);
+            Metrics.setGauge("tick.budgetUsedPercent", duration * 100 / periodNanos);
+
+            nextTick += periodNanos;
+            if (tickEnd > nextTick) {
+                nextTick = handleOverrun(nextTick, tickEnd);
+            }
+        }
+    }
+
+    private long handleOverrun(long nextTick, long now) {
+        long behind = (now - nextTick) / periodNanos + 1;
+        Metrics.increment("tick.overruns");
+
+        switch (overrunPolicy) {
+            case SKIP -> {
+                Metrics.add("tick.skipped", behind);
+                return nextTick + behind * periodNanos;
+            }
+            case CATCH_UP -> {
+                if (behind <= maxCatchUp) {
+                    return nextTick;
+                }
+                // Too far behind to catch up, drop the backlog and continue on schedule
+                Logger.printWarning("World is " + behind + " ticks behind, skipping them");
+                Metrics.add("tick.skipped", behind);
+                return nextTick + behind * periodNanos;
+            }
+            case STRETCH -> {
+                return now;
+            }
+        }
+        return nextTick;
+    }
+
+    private void sleepUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public long getTickNumber() {
+        return tickNumber;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    // Share of the period the current tick has left, negative once it overruns
+    public double getHeadroom() {
+        return 1.0 - (double) (System.nanoTime() - tickStartNanos) / periodNanos;
+    }
+}
@@ -1,20 +1,29 @@
 package com.g8e.gameserver;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.java_websocket.WebSocket;
-import org.java_websocket.exceptions.WebsocketNotConnectedException;
 
+import com.g8e.db.PlayerWriter;
 import com.g8e.gameserver.constants.NpcConstants;
+import com.g8e.gameserver.enums.TickPhase;
 import com.g8e.gameserver.managers.EntitiesManager;
+import com.g8e.gameserver.managers.EntityRegistry;
+import com.g8e.gameserver.managers.FlowFieldManager;
 import com.g8e.gameserver.managers.ItemsManager;
+import com.g8e.gameserver.managers.PathRequestManager;
 import com.g8e.gameserver.models.ChatMessage;
 import com.g8e.gameserver.models.entities.Entity;
 import com.g8e.gameserver.models.entities.Npc;
@@ -24,26 +33,41 @@ import com.g8e.gameserver.models.events.SoundEvent;
 import com.g8e.gameserver.models.events.TalkEvent;
 import com.g8e.gameserver.models.events.TradeEvent;
 import com.g8e.gameserver.models.objects.Item;
-import com.g8e.gameserver.network.GameState;
+import com.g8e.gameserver.network.ClientSession;
+import com.g8e.gameserver.network.GameStateBroadcaster;
+import com.g8e.gameserver.network.InterestManager;
+import com.g8e.gameserver.network.PendingJoin;
 import com.g8e.gameserver.network.WebSocketEventsHandler;
-import com.g8e.gameserver.network.actions.Action;
-import com.g8e.gameserver.network.compressing.Compress;
-import com.g8e.gameserver.network.dataTransferModels.DTOItem;
-import com.g8e.gameserver.network.dataTransferModels.DTONpc;
-import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+import com.g8e.gameserver.network.compressing.AdaptiveCompressionPolicy;
+import com.g8e.gameserver.network.compressing.CompressionPolicy;
+import com.g8e.gameserver.network.compressing.FixedCompressionPolicy;
+import com.g8e.gameserver.network.compressing.FrameCompressor;
+import com.g8e.gameserver.pathfinding.AStar;
+import com.g8e.gameserver.pathfinding.CollisionGrid;
+import com.g8e.gameserver.pathfinding.HierarchicalPathfinder;
+import com.g8e.gameserver.pathfinding.JumpPointSearch;
+import com.g8e.gameserver.pathfinding.PathCache;
+import com.g8e.gameserver.pathfinding.PathNode;
+import com.g8e.gameserver.pathfinding.Pathfinder;
+import com.g8e.gameserver.tile.SpatialGrid;
 import com.g8e.gameserver.tile.TileManager;
+import com.g8e.gameserver.tile.TilePosition;
+import com.g8e.gameserver.util.GameConstants;
+import com.g8e.gameserver.util.Metrics;
+import com.g8e.gameserver.util.TickProfiler;
 import com.g8e.util.Logger;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 public class World {
-    private static final int TICK_RATE = 600;
     public final int maxWorldCol = 50;
     public final int maxWorldRow = 50;
     public final int maxPlayers = 1000;
 
+    // Entities allocate their handle while the fields below are initialized
+    public final EntityRegistry entityRegistry = new EntityRegistry();
+
     public WebSocketEventsHandler webSocketEventsHandler;
     public TileManager tileManager = new TileManager(this);
+    public final SpatialGrid spatialGrid = new SpatialGrid(maxWorldCol, maxWorldRow);
     public ItemsManager itemsManager = new ItemsManager(this);
     public EntitiesManager entitiesManager = new EntitiesManager();
    // public QuestsManager questsManager = new QuestsManager();
@@ -51,17 +75,46 @@ public class World {
     public List<Npc> npcs = new ArrayList<>();
     public List<Item> items = new ArrayList<>();
     public List<ChatMessage> chatMessages = new ArrayList<>();
-    public List<Action> actionQueue = new ArrayList<>();
     public List<AttackEvent> tickAttackEvents = new ArrayList<>();
     public List<TalkEvent> tickTalkEvents = new ArrayList<>();
     public List<TradeEvent> tickTradeEvents = new ArrayList<>();
     public List<SoundEvent> tickSoundEvents = new ArrayList<>();
 
     public WebSocket[] connections = new WebSocket[maxPlayers];
+    public final TickProfiler tickProfiler = new TickProfiler(GameConstants.SLOW_TICK_MS,
+            GameConstants.SLOW_TICK_HISTORY);
+    public final InterestManager interestManager = new InterestManager(this,
+            new GameStateBroadcaster(this::getEntityHandle, tickProfiler,
+                    new FrameCompressor(createCompressionPolicy(), () -> this.tickScheduler.getHeadroom())));
     public List<String> onlinePlayers = new ArrayList<>();
 
     public final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final Map<String, ScheduledFuture<?>> combatChecks = new ConcurrentHashMap<>();
+
+    // Pathfinders keep scratch buffers, so every thread that simulates gets its own
+    private final ThreadLocal<Pathfinder> pathFinders = ThreadLocal
+            .withInitial(() -> createPathFinder(tileManager));
+    private final PathCache pathCache = new PathCache(GameConstants.PATH_CACHE_SIZE);
+    private final HierarchicalPathfinder hierarchicalPathfinder = new HierarchicalPathfinder(tileManager,
+            tileManager.chunkSize, GameConstants.HIERARCHICAL_PATH_RANGE);
+    public PathRequestManager pathRequests = new PathRequestManager(this, GameConstants.PATH_BUDGET_MS,
+            GameConstants.PATH_WORKER_THREADS);
+    // Players loaded on the connect threads, added at the start of a tick
+    private final Queue<PendingJoin> joinQueue = new ConcurrentLinkedQueue<>();
+    // Closed connections, removed at the start of a tick after the joins
+    private final Queue<WebSocket> leaveQueue = new ConcurrentLinkedQueue<>();
+    // Players who left in combat stay in the world until the combat ends,
+    // only touched on the tick thread
+    private final Set<WebSocket> leavingInCombat = new LinkedHashSet<>();
+    // Open until the logout row of the account is queued, a reconnect of the
+    // same account waits for it
+    private final Map<Integer, CountDownLatch> pendingLogouts = new ConcurrentHashMap<>();
+    public final PlayerWriter playerWriter = new PlayerWriter(GameConstants.PLAYER_FLUSH_INTERVAL_MS);
+    public FlowFieldManager flowFields = new FlowFieldManager(this, GameConstants.FLOW_FIELD_RADIUS,
+            GameConstants.FLOW_FIELD_MIN_USERS, GameConstants.FLOW_FIELD_TTL_TICKS);
+
+    private Thread tickThread;
+    public final TickScheduler tickScheduler = new TickScheduler(this::gameTick, GameConstants.TICK_RATE_MS,
+            GameConstants.TICK_OVERRUN_POLICY, GameConstants.TICK_MAX_CATCH_UP);
 
     public World() {
         this.setInitialNpcs();
@@ -96,15 +149,34 @@ public class World {
         }
     }
 
+    // Ticks run on their own thread so the server console stays responsive
     public void start() {
-        while (true) {
+        tickThread = new Thread(tickScheduler, "world-tick");
+        tickThread.start();
+        playerWriter.start();
+    }
+
+    // Players still online are written out before the writer stops. The
+    // tick thread has to finish first, the rows are built from live players
+    public void stop() {
+        tickScheduler.stop();
+        if (tickThread != null) {
+            LockSupport.unpark(tickThread);
             try {
-                Thread.sleep(TICK_RATE);
-                gameTick();
+                tickThread.join(GameConstants.TICK_RATE_MS * 10L);
             } catch (InterruptedException e) {
-                Logger.printError(e.getMessage());
+                Thread.currentThread().interrupt();
             }
         }
+        pathRequests.shutdown();
+
+        if (tickThread != null && tickThread.isAlive()) {
+            // Rows of changed players were queued at the end of every tick
+            Logger.printWarning("Tick did not finish, online players are saved as of their last change");
+        } else {
+            this.players.forEach(player -> playerWriter.enqueue(player.toDBPlayer()));
+        }
+        playerWriter.shutdown();
     }
 
     public void addChatMessage(ChatMessage chatMessage) {
@@ -116,40 +188,79 @@ public class World {
     }
 
     private void gameTick() {
+        tickProfiler.beginTick(tickScheduler.getTickNumber());
         try {
+            TickPhase previous = tickProfiler.enter(TickPhase.JOINS);
+            admitJoiningPlayers();
+
+            tickProfiler.enter(TickPhase.ACTIONS);
             this.players.forEach(player -> {
-                List<Action> playerActions = this.actionQueue.stream()
-                        .filter(action -> action.getPlayerID().equals(player.entityID))
-                        .toList();
+                player.setTickActions(player.actionInbox.drain());
+            });
+
+            tickProfiler.enter(TickPhase.PATHS);
+            pathRequests.processTick();
 
-                player.setTickActions(playerActions);
+            tickProfiler.enter(TickPhase.PLAYERS);
+            this.players.forEach(player -> {
                 player.update();
             });
 
-            // Remove actions after processing all players to avoid concurrent modification
-            // exception
-            List<Action> actionsToRemove = this.players.stream()
-                    .flatMap(player -> this.actionQueue.stream()
-                            .filter(action -> action.getPlayerID().equals(player.entityID)))
-                    .toList();
-            this.actionQueue.removeAll(actionsToRemove);
-
+            tickProfiler.enter(TickPhase.NPCS);
             this.npcs.forEach(npc -> {
                 npc.update();
             });
+            flowFields.processTick();
+
+            tickProfiler.enter(TickPhase.DESPAWNS);
             itemsManager.updateDespawnTimers();
+
+            tickProfiler.enter(TickPhase.STATE_BUILD);
             sentGameStateToConnections();
+
+            tickProfiler.enter(TickPhase.CLEANUP);
             cleanUpData();
+            tickProfiler.exit(previous);
         } catch (Exception e) {
             Logger.printError(e.getMessage());
+        } finally {
+            tickProfiler.endTick();
         }
     }
 
+    public void queueJoin(PendingJoin join) {
+        joinQueue.add(join);
+    }
+
+    public void queueLeave(WebSocket conn) {
+        leaveQueue.add(conn);
+    }
+
+    // Joins and leaves are applied in the order they were queued, so a
+    // connection closed right after its join is removed again a tick later
+    private void admitJoiningPlayers() {
+        PendingJoin join;
+        while ((join = joinQueue.poll()) != null) {
+            join.complete(this);
+        }
+        Metrics.setGauge("connect.joinQueueDepth", joinQueue.size());
+
+        WebSocket conn;
+        while ((conn = leaveQueue.poll()) != null) {
+            leavingInCombat.add(conn);
+        }
+        leavingInCombat.removeIf(this::removePlayer);
+    }
+
     private void cleanUpData() {
         this.chatMessages.clear();
 
         this.players.forEach(player -> {
             player.clearChangedFlags();
+            if (player.persistenceDirty) {
+                playerWriter.enqueue(player.toDBPlayer());
+                player.persistenceDirty = false;
+            }
         });
 
         this.npcs.forEach(npc -> {
@@ -160,56 +271,17 @@ public class World {
             npc.clearChangedFlags();
         });
 
-        this.items.forEach(item -> {
+        this.items.removeIf(item -> {
             if (item.isDeleted == true) {
-                items.remove(item);
+                itemsManager.forgetGroundItem(item);
+                return true;
             }
+            return false;
         });
     }
 
     private void sentGameStateToConnections() {
-        List<DTOPlayer> dtoPlayers = this.players.stream()
-                .map(DTOPlayer::new)
-                .filter(dto -> !dto.hasOnlyEntityId())
-                .toList();
-        List<DTONpc> dtoNpcs = this.npcs.stream()
-                .map(DTONpc::new)
-                .filter(dto -> !dto.hasOnlyEntityId())
-                .toList();
-
-        List<DTOItem> dtoItems = this.items.stream()
-                .map(DTOItem::new)
-                .filter(dto -> !dto.hasOnlyUniqueId())
-                .toList();
-
-        GameState newGameState = new GameState(this.tickAttackEvents, this.tickTalkEvents, this.tickTradeEvents,
-                this.tickSoundEvents,
-                dtoPlayers, dtoNpcs,
-                this.chatMessages,
-                dtoItems, null, this.onlinePlayers);
-
-        removeEmptyCollections(newGameState);
-
-        for (WebSocket conn : connections) {
-            if (conn != null) {
-                Player player = this.players.stream().filter(p -> p.entityID.equals(conn.toString())).findFirst()
-                        .orElse(null);
-
-                if (player != null) {
-                    Gson gson = new GsonBuilder().create();
-                    String gameStateJson = gson.toJson(newGameState);
-                    byte[] compressedData = Compress.compress(gameStateJson);
-
-                    try {
-                        conn.send(compressedData);
-                    } catch (WebsocketNotConnectedException e) {
-                        Logger.printInfo("Connection " + conn
-                                + " is not connected, probably in combat and waiting to be logged out");
-                    }
-
-                }
-            }
-        }
+        interestManager.broadcastTick();
 
         this.tickAttackEvents.clear();
         this.tickTalkEvents.clear();
@@ -217,27 +289,6 @@ public class World {
         this.tickSoundEvents.clear();
     }
 
-    private void removeEmptyCollections(GameState state) {
-        if (state.getTickAttackEvents().isEmpty())
-            state.setTickAttackEvents(null);
-        if (state.getTickTalkEvents().isEmpty())
-            state.setTickTalkEvents(null);
-        if (state.getTickTradeEvents().isEmpty())
-            state.setTickTradeEvents(null);
-        if (state.getTickSoundEvents().isEmpty())
-            state.setTickSoundEvents(null);
-
-        if (state.getPlayers().isEmpty())
-            state.setPlayers(null);
-        if (state.getNpcs().isEmpty())
-            state.setNpcs(null);
-        if (state.getItems().isEmpty())
-            state.setItems(null);
-        if (state.getChatMessages().isEmpty())
-            state.setChatMessages(null);
-
-    }
-
     public List<Item> getItems() {
         return items;
     }
@@ -250,71 +301,107 @@ public class World {
         return npcs;
     }
 
-    public void enqueueAction(Action action) {
-        this.actionQueue.add(action);
-    }
-
     public void addPlayer(Player player) {
+        pendingLogouts.put(player.accountID, new CountDownLatch(1));
         this.players.add(player);
+        entityRegistry.registerEntity(player);
+        spatialGrid.add(player);
     }
 
     public Entity getEntityByID(String entityID) {
-        for (Player player : players) {
-            if (entityID.equals(player.entityID)) {
-                return player;
-            }
+        return entityRegistry.getEntityByID(entityID);
+    }
+
+    public Pathfinder getPathFinder() {
+        return pathFinders.get();
+    }
+
+    public Pathfinder createPathFinder(CollisionGrid grid) {
+        if (GameConstants.PATHFINDER.equalsIgnoreCase("jps")) {
+            return new JumpPointSearch(grid);
         }
+        return new AStar(grid);
+    }
 
-        for (Npc npc : npcs) {
-            if (entityID.equals(npc.entityID)) {
-                return npc;
-            }
+    public CompressionPolicy createCompressionPolicy() {
+        if (GameConstants.COMPRESSION_POLICY.equalsIgnoreCase("fixed")) {
+            return new FixedCompressionPolicy(GameConstants.COMPRESSION_LEVEL);
         }
+        return new AdaptiveCompressionPolicy(GameConstants.COMPRESSION_RAW_THRESHOLD,
+                GameConstants.COMPRESSION_LARGE_PAYLOAD, GameConstants.COMPRESSION_LOW_HEADROOM_PERCENT,
+                GameConstants.COMPRESSION_CRITICAL_HEADROOM_PERCENT);
+    }
+
+    public List<PathNode> findPath(int startX, int startY, int targetX, int targetY) {
+        int collisionVersion = tileManager.getCollisionVersion();
+        List<PathNode> path = pathCache.get(startX, startY, targetX, targetY, collisionVersion);
+        if (path == null) {
+            path = getPathFinder().findPath(startX, startY, targetX, targetY);
+            pathCache.put(startX, startY, targetX, targetY, collisionVersion, path);
+        }
+        return path;
+    }
 
-        return null;
+    // Chunk by chunk plan for long paths, null if findPath should be used
+    public List<TilePosition> findPlan(int startX, int startY, int targetX, int targetY) {
+        return hierarchicalPathfinder.findPlan(startX, startY, targetX, targetY, tileManager.getCollisionVersion());
+    }
+
+    public int allocateHandle() {
+        return entityRegistry.allocateHandle();
+    }
+
+    public int getEntityHandle(String entityID) {
+        return entityRegistry.getEntityHandle(entityID);
     }
 
     public Item getItemByID(String itemUniqueID) {
-        Item item = null;
-        for (Item i : items) {
-            if (i != null && i.getUniqueID().equals(itemUniqueID)) {
-                item = i;
-                break;
-            }
+        return entityRegistry.getItemByID(itemUniqueID);
+    }
+
+    // The full row is written on logout, position included, without waiting
+    // for the next flush interval
+    private void logOutPlayer(Player player) {
+        playerWriter.enqueue(player.toDBPlayer());
+        player.persistenceDirty = false;
+        playerWriter.flushLater();
+
+        CountDownLatch logout = pendingLogouts.remove(player.accountID);
+        if (logout != null) {
+            logout.countDown();
         }
-        return item;
-    }
-
-    public void removePlayer(WebSocket conn) {
-        String playerID = conn.toString();
-        Player player = this.players.stream().filter(p -> p.entityID.equals(playerID)).findFirst().orElse(null);
-        if (player != null) {
-            if (player.isInCombat == false) {
-                this.players.remove(player);
-                removeConnection(conn);
-            } else {
-                // Schedule a task to check every 600 milliseconds if the player is still in
-                // combat
-                ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-                    if (!player.isInCombat) {
-                        players.remove(player);
-                        removeConnection(conn);
-
-                        System.out.println("Player removed from game after combat ended");
-
-                        // Cancel this specific task
-                        combatChecks.get(playerID).cancel(true);
-                        combatChecks.remove(playerID);
-                    }
-                }, 0, 600, TimeUnit.MILLISECONDS);
-
-                // Store the ScheduledFuture in the map
-                combatChecks.put(playerID, future);
-            }
+    }
 
-            // set interval to check if player is still in combat
+    // Called off the tick thread before loading a player. A session of the
+    // same account that is still leaving, also one kept in the world by
+    // combat, has to queue its logout row first. False on timeout.
+    public boolean awaitLogout(int accountID, long timeoutMs) throws InterruptedException {
+        CountDownLatch logout = pendingLogouts.get(accountID);
+        return logout == null || logout.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
 
+    // Returns false while the player is still in combat, it is tried again
+    // next tick
+    private boolean removePlayer(WebSocket conn) {
+        ClientSession session = conn.getAttachment();
+        if (session == null) {
+            return true;
         }
+
+        Player player = session.player;
+        if (player.isInCombat) {
+            return false;
+        }
+
+        this.players.remove(player);
+        player.cancelPathRequest();
+        entityRegistry.unregisterEntity(player);
+        spatialGrid.remove(player);
+        removeConnection(conn);
+        logOutPlayer(player);
+        conn.setAttachment(null);
+        session.close();
+        return true;
     }
 
     private void setInitialNpcs() {
@@ -327,6 +414,8 @@ public class World {
     private void addNpc(int index, int x, int y, int wanderRange) {
         Npc npc = new Npc(this, index, x, y);
         this.npcs.add(npc);
+        entityRegistry.registerEntity(npc);
+        spatialGrid.add(npc);
         npc.setWanderRange(wanderRange);
     }
 
@@ -335,27 +424,16 @@ public class World {
     }
 
     public Entity getEntityAt(int x, int y) {
-        for (Player player : players) {
-            if (!player.isDying && player.worldX == x && player.worldY == y) {
-                return player;
-            }
-        }
-
-        for (Npc npc : npcs) {
-            if (!npc.isDying && npc.worldX == x && npc.worldY == y) {
-                return npc;
-            }
-        }
-
-        return null;
+        return spatialGrid.getEntityAt(x, y);
     }
 
     public void setItems(List<Item> items) {
+        this.items.forEach(itemsManager::forgetGroundItem);
         this.items = items;
-    }
-
-    public List<Action> getActionQueue() {
-        return actionQueue;
+        this.items.forEach(item -> {
+            entityRegistry.registerItem(item);
+            spatialGrid.addItem(item);
+        });
     }
 
     public List<TalkEvent> getTickTalkEvents() {
@@ -0,0 +1,7 @@
+package com.g8e.gameserver.enums;
+
+public enum TickOverrunPolicy {
+    SKIP, // Drop the missed ticks and continue on the next boundary
+    CATCH_UP, // Run the missed ticks back to back until on schedule again
+    STRETCH // Start the next tick right away and shift the schedule
+}
@@ -0,0 +1,14 @@
+package com.g8e.gameserver.enums;
+
+public enum TickPhase {
+    JOINS,
+    ACTIONS,
+    PATHS,
+    PLAYERS,
+    NPCS,
+    DESPAWNS,
+    STATE_BUILD,
+    ENCODE,
+    SEND,
+    CLEANUP
+}
@@ -0,0 +1,80 @@
+package com.g8e.gameserver.managers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.g8e.gameserver.models.entities.Entity;
+import com.g8e.gameserver.models.objects.Item;
+
+/**
+ * Hashed lookup for everything that lives in the world, by string ID and by
+ * integer handle. Handles are never reused while the server runs, so a handle
+ * the client still holds can not point to a different entity.
+ *
+ * The maps are only touched on the tick thread, joins and leaves are applied
+ * there. Handles are allocated when a player is built on the connect thread,
+ * hence the atomic counter.
+ */
+public class EntityRegistry {
+    // Handle 0 is reserved for "unknown" on the wire
+    private final AtomicInteger nextHandle = new AtomicInteger(1);
+
+    private final Map<String, Entity> entitiesByID = new HashMap<>();
+    private final Map<Integer, Entity> entitiesByHandle = new HashMap<>();
+    private final Map<String, Item> itemsByID = new HashMap<>();
+    private final Map<Integer, Item> itemsByHandle = new HashMap<>();
+
+    public int allocateHandle() {
+        return nextHandle.getAndIncrement();
+    }
+
+    public void registerEntity(Entity entity) {
+        entitiesByID.put(entity.entityID, entity);
+        entitiesByHandle.put(entity.handle, entity);
+    }
+
+    public void unregisterEntity(Entity entity) {
+        entitiesByID.remove(entity.entityID, entity);
+        entitiesByHandle.remove(entity.handle, entity);
+    }
+
+    public void registerItem(Item item) {
+        itemsByID.put(item.getUniqueID(), item);
+        itemsByHandle.put(item.handle, item);
+    }
+
+    public void unregisterItem(Item item) {
+        itemsByID.remove(item.getUniqueID(), item);
+        itemsByHandle.remove(item.handle, item);
+    }
+
+    public Entity getEntityByID(String entityID) {
+        return entityID != null ? entitiesByID.get(entityID) : null;
+    }
+
+    public Entity getEntityByHandle(int handle) {
+        return entitiesByHandle.get(handle);
+    }
+
+    public Item getItemByID(String uniqueItemID) {
+        return uniqueItemID != null ? itemsByID.get(uniqueItemID) : null;
+    }
+
+    public Item getItemByHandle(int handle) {
+        return itemsByHandle.get(handle);
+    }
+
+    public int getEntityHandle(String entityID) {
+        Entity entity = getEntityByID(entityID);
+        return entity != null ? entity.handle : 0;
+    }
+
+    public int getEntityCount() {
+        return entitiesByID.size();
+    }
+
+    public int getItemCount() {
+        return itemsByID.size();
+    }
+}
@@ -0,0 +1,85 @@
+package com.g8e.gameserver.managers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.g8e.gameserver.World;
+import com.g8e.gameserver.pathfinding.FlowField;
+import com.g8e.gameserver.util.Metrics;
+
+/**
+ * Shares one flow field per chased target between the NPCs chasing it. A
+ * field is only built once enough NPCs ask for the same target in one tick,
+ * it is dropped when the target moves or the map changes, and forgotten once
+ * nobody has used it for a few ticks. A field that was in use when its
+ * target moved is rebuilt on the first request, its users still need it.
+ *
+ * Only used from the tick thread.
+ */
+public class FlowFieldManager {
+    private final World world;
+    private final int radius;
+    private final int minUsers;
+    private final int ttlTicks;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private static class Entry {
+        FlowField field;
+        long lastUsedTick;
+        long fieldUsedTick = -1;
+        long demandTick = -1;
+        int demand;
+    }
+
+    public FlowFieldManager(World world, int radius, int minUsers, int ttlTicks) {
+        this.world = world;
+        this.radius = radius;
+        this.minUsers = minUsers;
+        this.ttlTicks = ttlTicks;
+    }
+
+    // Null while the target is not chased by enough NPCs to be worth a field
+    public FlowField getField(int targetHandle, int goalX, int goalY) {
+        long tick = world.tickScheduler.getTickNumber();
+        int collisionVersion = world.tileManager.getCollisionVersion();
+
+        Entry entry = entries.computeIfAbsent(targetHandle, handle -> new Entry());
+        entry.lastUsedTick = tick;
+
+        FlowField field = entry.field;
+        if (field != null && (field.goalX != goalX || field.goalY != goalY
+                || field.collisionVersion != collisionVersion)) {
+            entry.field = null;
+            Metrics.increment("flowField.evicted");
+            if (tick - entry.fieldUsedTick <= 1) {
+                entry.demandTick = tick;
+                entry.demand = minUsers;
+            }
+        }
+
+        if (entry.field != null) {
+            entry.fieldUsedTick = tick;
+            Metrics.increment("flowField.hits");
+            return entry.field;
+        }
+
+        if (entry.demandTick != tick) {
+            entry.demandTick = tick;
+            entry.demand = 0;
+        }
+        if (++entry.demand < minUsers) {
+            return null;
+        }
+
+        entry.field = new FlowField(world.tileManager, goalX, goalY, radius, collisionVersion);
+        entry.fieldUsedTick = tick;
+        Metrics.increment("flowField.built");
+        return entry.field;
+    }
+
+    public void processTick() {
+        long tick = world.tickScheduler.getTickNumber();
+        entries.values().removeIf(entry -> tick - entry.lastUsedTick > ttlTicks);
+        Metrics.setGauge("flowField.active", entries.values().stream().filter(entry -> entry.field != null).count());
+    }
+}
@@ -7,10 +7,12 @@ import java.net.URL;
 import java.util.UUID;
 
 import com.g8e.gameserver.World;
+import com.g8e.gameserver.models.objects.DespawnWheel;
 import com.g8e.gameserver.models.objects.DespawningItem;
 import com.g8e.gameserver.models.objects.Edible;
 import com.g8e.gameserver.models.objects.Item;
 import com.g8e.gameserver.models.objects.Wieldable;
+import com.g8e.gameserver.util.Metrics;
 import com.g8e.util.Logger;
 import com.google.gson.Gson;
 
@@ -19,7 +21,7 @@ public class ItemsManager {
     private Wieldable[] wieldables = new Wieldable[100];
     private Edible[] edibles = new Edible[100];
     private World world;
-    private DespawningItem[] despawningItems = new DespawningItem[1000];
+    private final DespawnWheel despawnWheel = new DespawnWheel();
 
     public ItemsManager(World world) {
         loadItems();
@@ -87,13 +89,7 @@ public class ItemsManager {
     }
 
     public Item getItemByUniqueItemID(String uniqueItemID) {
-        for (Item item : world.items) {
-            if (item.getUniqueID().equals(uniqueItemID)) {
-                return item;
-            }
-        }
-
-        return null;
+        return world.entityRegistry.getItemByID(uniqueItemID);
     }
 
     public Edible getEdibleInfoByItemID(int itemID) {
@@ -123,7 +119,7 @@ public class ItemsManager {
         String uniqueID = "item_" + item.getName() + "_" + x + "_" + y + "_" + UUID.randomUUID();
 
         newItem.setUniqueID(uniqueID);
-        world.items.add(newItem);
+        addGroundItem(newItem);
     }
 
     public void spawnItem(int x, int y, int itemID, int despawnTime) {
@@ -140,17 +136,11 @@ public class ItemsManager {
                 item.getValue());
         newItem.setWorldX(x);
         newItem.setWorldY(y);
-        String uniqueID = "item_" + item.getName() + "_" + x + "_" + y + "_" + System.currentTimeMillis();
+        String uniqueID = "item_" + item.getName() + "_" + x + "_" + y + "_" + UUID.randomUUID();
 
         newItem.setUniqueID(uniqueID);
-        world.items.add(newItem);
-
-        for (int i = 0; i < despawningItems.length; i++) {
-            if (despawningItems[i] == null) {
-                despawningItems[i] = new DespawningItem(uniqueID, despawnTime);
-                break;
-            }
-        }
+        addGroundItem(newItem);
+        scheduleDespawn(newItem, despawnTime);
     }
 
     public void spawnItemWithAmount(int x, int y, int itemID, int despawnTime, int amount) {
@@ -167,17 +157,12 @@ public class ItemsManager {
         }
 
         // check if same itemID is already on the ground
-        for (Item groundItem : world.items) {
-            if (groundItem.getItemID() == itemID && groundItem.getWorldX() == x && groundItem.getWorldY() == y) {
+        for (Item groundItem : world.spatialGrid.getItemsAt(x, y)) {
+            if (groundItem.getItemID() == itemID && !groundItem.isDeleted) {
                 groundItem.setAmount(groundItem.getAmount() + amount);
 
                 // reset despawn timer
-                for (DespawningItem despawningItem : despawningItems) {
-                    if (despawningItem != null && despawningItem.getUniqueItemID().equals(groundItem.getUniqueID())) {
-                        despawningItem.setDespawnTimer(despawnTime);
-                        break;
-                    }
-                }
+                scheduleDespawn(groundItem, despawnTime);
                 return;
             }
         }
@@ -189,21 +174,42 @@ public class ItemsManager {
         newItem.setWorldX(x);
         newItem.setWorldY(y);
         newItem.setAmount(amount);
-        String uniqueID = "item_" + item.getName() + "_" + x + "_" + y + "_" + System.currentTimeMillis();
+        String uniqueID = "item_" + item.getName() + "_" + x + "_" + y + "_" + UUID.randomUUID();
 
         newItem.setUniqueID(uniqueID);
-        world.items.add(newItem);
+        addGroundItem(newItem);
+        scheduleDespawn(newItem, despawnTime);
+    }
 
-        for (int i = 0; i < despawningItems.length; i++) {
-            if (despawningItems[i] == null) {
-                despawningItems[i] = new DespawningItem(uniqueID, despawnTime);
-                break;
-            }
+    private void addGroundItem(Item item) {
+        item.handle = world.allocateHandle();
+        world.items.add(item);
+        world.entityRegistry.registerItem(item);
+        world.spatialGrid.addItem(item);
+    }
+
+    // Drops the item from the indexes, the caller removes it from world.items
+    public void forgetGroundItem(Item item) {
+        world.entityRegistry.unregisterItem(item);
+        world.spatialGrid.removeItem(item);
+        if (item.despawningItem != null) {
+            despawnWheel.cancel(item.despawningItem);
         }
     }
 
     public void removeItem(String uniqueItemID) {
-        world.items.removeIf(item -> item.getUniqueID().equals(uniqueItemID));
+        Item item = world.entityRegistry.getItemByID(uniqueItemID);
+        if (item != null) {
+            world.items.remove(item);
+            forgetGroundItem(item);
+        }
+    }
+
+    private void scheduleDespawn(Item item, int despawnTime) {
+        if (item.despawningItem == null) {
+            item.despawningItem = new DespawningItem(item);
+        }
+        despawnWheel.schedule(item.despawningItem, despawnTime);
     }
 
     public Wieldable getWieldableInfoByItemID(int itemID) {
@@ -216,22 +222,9 @@ public class ItemsManager {
         return null;
     }
 
+    // Expired items are marked deleted so clients drop them, cleanUpData removes them
     public void updateDespawnTimers() {
-        for (int i = 0; i < despawningItems.length; i++) {
-            DespawningItem despawningItem = despawningItems[i];
-            if (despawningItem == null) {
-                continue;
-            }
-            if (world.items.stream().noneMatch(item -> item.getUniqueID().equals(despawningItem.getUniqueItemID()))) {
-                despawningItems[i] = null;
-                continue;
-            }
-            despawningItem.setDespawnTimer(despawningItem.getDespawnTimer() - 1);
-
-            if (despawningItem.getDespawnTimer() <= 0) {
-                removeItem(despawningItem.getUniqueItemID());
-                despawningItems[i] = null;
-            }
-        }
+        despawnWheel.advance(item -> item.setIsDeleted(true));
+        Metrics.setGauge("items.despawnTimers", despawnWheel.size());
     }
 }
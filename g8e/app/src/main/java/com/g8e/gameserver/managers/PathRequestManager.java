@@ -0,0 +1,196 @@
+package com.g8e.gameserver.managers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.g8e.gameserver.World;
+import com.g8e.gameserver.pathfinding.CollisionSnapshot;
+import com.g8e.gameserver.pathfinding.PathNode;
+import com.g8e.gameserver.pathfinding.PathRequest;
+import com.g8e.gameserver.pathfinding.Pathfinder;
+import com.g8e.gameserver.tile.TilePosition;
+import com.g8e.gameserver.util.LatencyHistogram;
+import com.g8e.gameserver.util.Metrics;
+import com.g8e.util.Logger;
+
+/**
+ * Queue for path searches so a burst of long requests can not stall a tick.
+ * Requests are searched at the start of the next tick until the time budget
+ * is used up, the rest waits for the following tick. With worker threads
+ * configured they are searched off the tick thread against a snapshot of the
+ * collision map instead. Tickets nobody waits for anymore are cancelled and
+ * skipped.
+ *
+ * Entity.refinePlan and Entity.repairPath still search directly on the tick
+ * thread. Both are short by construction: a leg of a plan ends in a
+ * neighbouring chunk and a repair starts within a couple of tiles of the new
+ * goal, and unreachable goals return before any search.
+ *
+ * submit, cancel and processTick are only called from the tick thread.
+ */
+public class PathRequestManager {
+    private final World world;
+    private final long budgetNanos;
+    private final ArrayDeque<PathRequest> pending = new ArrayDeque<>();
+    private final Map<Long, PathRequest> pendingByKey = new HashMap<>();
+    private final List<PathRequest> inFlight = new ArrayList<>();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    private final ExecutorService workers;
+    private final ThreadLocal<WorkerSearch> workerSearches = new ThreadLocal<>();
+    private CollisionSnapshot snapshot;
+
+    private record WorkerSearch(CollisionSnapshot snapshot, Pathfinder pathfinder) {
+    }
+
+    public PathRequestManager(World world, int budgetMs, int workerThreads) {
+        this.world = world;
+        this.budgetNanos = budgetMs * 1_000_000L;
+
+        if (workerThreads > 0) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+                Thread thread = new Thread(runnable, "path-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.workers = null;
+        }
+    }
+
+    // Identical requests still waiting share one ticket
+    public PathRequest submit(int startX, int startY, int targetX, int targetY) {
+        Metrics.increment("pathQueue.requests");
+        long key = getKey(startX, startY, targetX, targetY);
+        PathRequest request = pendingByKey.get(key);
+        if (request != null) {
+            Metrics.increment("pathQueue.deduplicated");
+            request.addUser();
+            return request;
+        }
+
+        request = new PathRequest(startX, startY, targetX, targetY);
+        request.addUser();
+        pending.add(request);
+        pendingByKey.put(key, request);
+        return request;
+    }
+
+    // For an entity that no longer wants the path. The search is skipped once
+    // every entity sharing the ticket has let go of it.
+    public void cancel(PathRequest request) {
+        if (request.isDone() || !request.removeUser()) {
+            return;
+        }
+
+        Metrics.increment("pathQueue.cancelled");
+        long key = getKey(request.startX, request.startY, request.targetX, request.targetY);
+        pendingByKey.remove(key, request);
+    }
+
+    public void processTick() {
+        if (workers != null) {
+            dispatchToWorkers();
+        } else {
+            searchWithinBudget();
+        }
+
+        Metrics.setGauge("pathQueue.depth", pending.size() + inFlight.size());
+        Metrics.setGauge("pathQueue.waitP50Micros", waitTimes.getPercentile(50));
+        Metrics.setGauge("pathQueue.waitP99Micros", waitTimes.getPercentile(99));
+        Metrics.setGauge("pathQueue.waitMaxMicros", waitTimes.getMax());
+    }
+
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void searchWithinBudget() {
+        long start = System.nanoTime();
+        int searched = 0;
+
+        // At least one request per tick so the queue always drains
+        while (!pending.isEmpty() && (searched == 0 || System.nanoTime() - start < budgetNanos)) {
+            PathRequest request = poll();
+            if (request.isCancelled()) {
+                continue;
+            }
+            List<TilePosition> plan = world.findPlan(request.startX, request.startY, request.targetX,
+                    request.targetY);
+            List<PathNode> path = plan == null
+                    ? world.findPath(request.startX, request.startY, request.targetX, request.targetY)
+                    : null;
+            request.complete(plan, path);
+            waitTimes.record(request.getWaitNanos() / 1000);
+            searched++;
+        }
+
+        Metrics.add("pathQueue.searched", searched);
+        Metrics.setGauge("pathQueue.searchMicros", (System.nanoTime() - start) / 1000);
+    }
+
+    private void dispatchToWorkers() {
+        inFlight.removeIf(request -> {
+            if (request.isDone()) {
+                waitTimes.record(request.getWaitNanos() / 1000);
+                return true;
+            }
+            return false;
+        });
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        if (snapshot == null || snapshot.getVersion() != world.tileManager.getCollisionVersion()) {
+            snapshot = world.tileManager.createCollisionSnapshot();
+        }
+
+        CollisionSnapshot current = snapshot;
+        while (!pending.isEmpty()) {
+            PathRequest request = poll();
+            if (request.isCancelled()) {
+                continue;
+            }
+            inFlight.add(request);
+            workers.execute(() -> search(request, current));
+        }
+    }
+
+    private void search(PathRequest request, CollisionSnapshot current) {
+        List<PathNode> path;
+        try {
+            WorkerSearch search = workerSearches.get();
+            if (search == null || search.snapshot() != current) {
+                search = new WorkerSearch(current, world.createPathFinder(current));
+                workerSearches.set(search);
+            }
+            path = search.pathfinder().findPath(request.startX, request.startY, request.targetX, request.targetY);
+        } catch (Exception e) {
+            Logger.printError("Path search failed: " + e.getMessage());
+            path = new ArrayList<>();
+        }
+        request.complete(null, path);
+        Metrics.increment("pathQueue.searched");
+    }
+
+    private PathRequest poll() {
+        PathRequest request = pending.poll();
+        pendingByKey.remove(getKey(request.startX, request.startY, request.targetX, request.targetY), request);
+        return request;
+    }
+
+    private static long getKey(int startX, int startY, int targetX, int targetY) {
+        return ((long) (startX & 0xFFFF) << 48) | ((long) (startY & 0xFFFF) << 32) | ((long) (targetX & 0xFFFF) << 16)
+                | (targetY & 0xFFFF);
+    }
+}
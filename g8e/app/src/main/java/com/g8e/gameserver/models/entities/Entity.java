@@ -5,12 +5,19 @@ import java.util.List;
 import com.g8e.gameserver.World;
 import com.g8e.gameserver.enums.Direction;
 import com.g8e.gameserver.enums.GoalAction;
-import com.g8e.gameserver.pathfinding.AStar;
+import com.g8e.gameserver.models.Chunkable;
+import com.g8e.gameserver.pathfinding.FlowField;
 import com.g8e.gameserver.pathfinding.PathNode;
+import com.g8e.gameserver.pathfinding.PathRequest;
 import com.g8e.gameserver.tile.TilePosition;
+import com.g8e.gameserver.util.Metrics;
+
+public abstract class Entity implements Chunkable {
+    // Goals that moved at most this many tiles are spliced into the queued path
+    private static final int REPAIR_RANGE = 2;
 
-public abstract class Entity {
     public String entityID;
+    public transient int handle;
     public int worldX;
     public int worldY;
     public int lastTickX;
@@ -19,7 +26,6 @@ public abstract class Entity {
     public Direction facingDirection = Direction.DOWN;
 
     public transient World world;
-    public transient AStar pathFinder;
 
     public transient int originalWorldX; // Where entity respawns
     public transient int originalWorldY; // Where entity respawns
@@ -43,8 +49,18 @@ public abstract class Entity {
     protected transient TilePosition[] waypoints = new TilePosition[25];
     protected transient int waypointIndex = -1;
 
+    // Remaining legs of a hierarchical plan, refined into waypoints one at a time
+    protected transient List<TilePosition> plan;
+    protected transient int planIndex;
+
+    // Search queued by moveTo, applied once the path service has answered
+    protected transient PathRequest pendingPath;
+
     protected transient Direction walkDirection = Direction.NONE;
 
+    // Chunk the entity was in when the last game state was broadcast
+    public transient int lastBroadcastChunk = -1;
+
     public int entityIDChanged = 1;
 
     public int worldXChanged = 1;
@@ -70,37 +86,83 @@ public abstract class Entity {
     public Entity(String entityID, World world, int worldX, int worldY) {
         this.goalAction = null;
         this.entityID = entityID;
+        this.handle = world.allocateHandle();
         this.world = world;
         this.originalWorldX = worldX;
         this.originalWorldY = worldY;
         this.worldX = worldX;
         this.worldY = worldY;
-        this.pathFinder = new AStar(world);
     }
 
     public abstract void update();
 
+    @Override
+    public int getCurrentChunk() {
+        return world.tileManager.getChunkByWorldXandY(worldX, worldY);
+    }
+
     protected void queuePath(List<PathNode> path) {
         waypointIndex = -1;
+        if (path.size() > waypoints.length) {
+            waypoints = new TilePosition[path.size()];
+        }
 
         // push reversed so we pop from the end
-        for (int i = path.size() - 1; i >= 0 && waypointIndex + 1 < waypoints.length; i--) {
+        for (int i = path.size() - 1; i >= 0; i--) {
             PathNode n = path.get(i);
             waypoints[++waypointIndex] = new TilePosition(n.x, n.y);
         }
     }
 
     protected boolean hasWaypoints() {
-        return waypointIndex >= 0;
+        return waypointIndex >= 0 || plan != null || pendingPath != null;
     }
 
     protected void clearWaypoints() {
         waypointIndex = -1;
+        plan = null;
+        cancelPathRequest();
         walkDirection = Direction.NONE;
     }
 
+    // Lets the path service skip a search nobody is waiting for anymore, also
+    // called when the entity leaves the world
+    public void cancelPathRequest() {
+        if (pendingPath != null) {
+            world.pathRequests.cancel(pendingPath);
+            pendingPath = null;
+        }
+    }
+
+    // Queues the path to the next leg of the plan, drops the plan when it is
+    // done or the leg can not be reached. Legs end in a neighbouring chunk, so
+    // they are searched right here instead of through the path service
+    private void refinePlan() {
+        while (plan != null && planIndex < plan.size()) {
+            TilePosition leg = plan.get(planIndex++);
+            List<PathNode> path = world.findPath(worldX, worldY, leg.x, leg.y);
+            if (path == null || path.isEmpty()) {
+                break;
+            }
+            if (path.size() >= 2) {
+                queuePath(path);
+                return;
+            }
+        }
+        plan = null;
+    }
+
     protected boolean processMovement() {
-        if (!hasWaypoints()) {
+        if (pendingPath != null && pendingPath.isDone()) {
+            applyPendingPath();
+        }
+
+        if (waypointIndex < 0 && plan != null) {
+            refinePlan();
+        }
+
+        // Nothing queued, or still waiting for the path service
+        if (waypointIndex < 0 && plan == null) {
             return false;
         }
 
@@ -127,6 +189,9 @@ public abstract class Entity {
         // reached this waypoint
         if (dx == 0 && dy == 0) {
             waypointIndex--;
+            if (waypointIndex < 0 && plan != null) {
+                refinePlan();
+            }
             return takeStep();
         }
 
@@ -210,6 +275,8 @@ public abstract class Entity {
 
         lastTickX = worldX;
         lastTickY = worldY;
+        int fromX = worldX;
+        int fromY = worldY;
 
         switch (dir) {
             case UP -> worldY--;
@@ -237,18 +304,144 @@ public abstract class Entity {
 
         setWorldX(worldX);
         setWorldY(worldY);
+        world.spatialGrid.move(this, fromX, fromY);
     }
 
+    // The search runs in the path service and the answer is applied in
+    // processMovement. The entity stops meanwhile so the path starts where it
+    // stands.
     protected void moveTo(TilePosition target) {
-        List<PathNode> path = pathFinder.findPath(worldX, worldY, target.x, target.y);
+        waypointIndex = -1;
+        plan = null;
+        cancelPathRequest();
+        pendingPath = world.pathRequests.submit(worldX, worldY, target.x, target.y);
+    }
+
+    private void applyPendingPath() {
+        PathRequest request = pendingPath;
+        pendingPath = null;
+
+        List<TilePosition> legs = request.getPlan();
+        if (legs != null) {
+            if (legs.isEmpty()) {
+                return;
+            }
+            waypointIndex = -1;
+            plan = legs;
+            planIndex = 0;
+            refinePlan();
+            return;
+        }
+
+        List<PathNode> path = request.getPath();
 
         if (path == null || path.size() < 2) {
             return;
         }
 
+        plan = null;
         queuePath(path);
     }
 
+    // Takes the free step that gets closest to the field's goal. False when
+    // the field does not cover this tile, true otherwise even if every step
+    // towards the goal is taken by someone else this tick.
+    protected boolean followFlowField(FlowField field) {
+        int current = field.getDistance(worldX, worldY);
+        if (current < 0) {
+            return false;
+        }
+
+        Direction best = Direction.NONE;
+        int bestDistance = current;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                int distance = field.getDistance(worldX + dx, worldY + dy);
+                if (distance < 0 || distance >= bestDistance) {
+                    continue;
+                }
+                Direction dir = getDirection(dx, dy);
+                if (canMove(dir)) {
+                    best = dir;
+                    bestDistance = distance;
+                }
+            }
+        }
+
+        if (best != Direction.NONE) {
+            moveOneTile(best);
+        }
+        return true;
+    }
+
+    // Follows a moving goal, reusing the queued path when the goal only moved a
+    // tile or two instead of searching from scratch
+    protected void chaseTo(TilePosition target) {
+        if (pendingPath != null && pendingPath.targetX == target.x && pendingPath.targetY == target.y) {
+            return;
+        }
+
+        if (plan != null && plan.get(plan.size() - 1).equals(target)) {
+            return;
+        }
+
+        if (pendingPath == null && plan == null && waypointIndex >= 0) {
+            TilePosition goal = waypoints[0];
+            if (goal.equals(target)) {
+                return;
+            }
+
+            if (Math.max(Math.abs(goal.x - target.x), Math.abs(goal.y - target.y)) <= REPAIR_RANGE
+                    && repairPath(target)) {
+                Metrics.increment("pathRepair.repaired");
+                return;
+            }
+        }
+
+        Metrics.increment("pathRepair.fullSearches");
+        moveTo(target);
+    }
+
+    // Keeps the queued steps up to the one closest to the new goal and
+    // searches only from there. The search starts within REPAIR_RANGE of the
+    // goal, short enough to run outside the path service
+    private boolean repairPath(TilePosition target) {
+        int splice = waypointIndex;
+        int spliceDistance = Integer.MAX_VALUE;
+        for (int i = waypointIndex; i >= 0; i--) {
+            TilePosition waypoint = waypoints[i];
+            int distance = Math.max(Math.abs(waypoint.x - target.x), Math.abs(waypoint.y - target.y));
+            if (distance < spliceDistance) {
+                spliceDistance = distance;
+                splice = i;
+            }
+        }
+
+        TilePosition from = waypoints[splice];
+        List<PathNode> suffix = world.findPath(from.x, from.y, target.x, target.y);
+        if (suffix == null || suffix.isEmpty() || suffix.size() - 1 > spliceDistance + REPAIR_RANGE * 2) {
+            return false;
+        }
+
+        int added = suffix.size() - 1;
+        int kept = waypointIndex - splice + 1;
+        if (added + kept > waypoints.length) {
+            TilePosition[] grown = new TilePosition[added + kept];
+            System.arraycopy(waypoints, splice, grown, added, kept);
+            waypoints = grown;
+        } else {
+            System.arraycopy(waypoints, splice, waypoints, added, kept);
+        }
+
+        // goal at the bottom of the stack
+        for (int i = 0; i < added; i++) {
+            PathNode n = suffix.get(added - i);
+            waypoints[i] = new TilePosition(n.x, n.y);
+        }
+        waypointIndex = added + kept - 1;
+        return true;
+    }
+
     protected Direction getDirectionTowardsTile(int entityX, int entityY) {
         int dx = Integer.compare(entityX, this.worldX);
         int dy = Integer.compare(entityY, this.worldY);
@@ -256,10 +449,13 @@ public abstract class Entity {
     }
 
     // Always use move instead of explicitly setting worldX and worldY
-    // This will ensure that the chunk is updated correctly
+    // This will ensure that the chunk and the spatial grid are updated correctly
     protected void move(int worldX, int worldY) {
+        int fromX = this.worldX;
+        int fromY = this.worldY;
         setWorldX(worldX);
         setWorldY(worldY);
+        world.spatialGrid.move(this, fromX, fromY);
         if (this instanceof Player player) {
             player.savePosition();
         }
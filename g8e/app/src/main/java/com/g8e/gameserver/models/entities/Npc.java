@@ -3,6 +3,7 @@ package com.g8e.gameserver.models.entities;
 import com.g8e.gameserver.World;
 import com.g8e.gameserver.enums.Direction;
 import com.g8e.gameserver.models.DropTable;
+import com.g8e.gameserver.pathfinding.FlowField;
 import com.g8e.gameserver.tile.TilePosition;
 import com.g8e.gameserver.util.ExperienceUtils;
 import com.g8e.gameserver.util.SkillUtils;
@@ -80,7 +81,7 @@ public class Npc extends Combatant {
 
     @Override
     public void update() {
-        processMovement();
+        boolean moved = processMovement();
         updateCounters();
 
         if (interactionTargetID != null) {
@@ -146,11 +147,18 @@ public class Npc extends Combatant {
             }
 
             if (!isOneStepAwayFromTarget()) {
-                // Re-path only if we ran out of steps
-                if (!hasWaypoints()) {
+                // NPCs converging on the same target share a flow field,
+                // otherwise the queued path is repaired when the target moves
+                FlowField field = world.flowFields.getField(target.handle, target.worldX, target.worldY);
+                if (field != null && field.getDistance(worldX, worldY) >= 0) {
+                    clearWaypoints();
+                    if (!moved) {
+                        followFlowField(field);
+                    }
+                } else {
                     TilePosition adj = getBestAdjacentTile(target);
                     if (adj != null) {
-                        moveTo(adj);
+                        chaseTo(adj);
                     }
                 }
             }
@@ -1,9 +1,7 @@
 package com.g8e.gameserver.models.entities;
 
-import java.sql.SQLException;
 import java.util.List;
 
-import com.g8e.db.CommonQueries;
 import com.g8e.db.models.DBPlayer;
 import com.g8e.gameserver.World;
 import com.g8e.gameserver.enums.GoalAction;
@@ -15,6 +13,7 @@ import com.g8e.gameserver.models.objects.Edible;
 import com.g8e.gameserver.models.objects.Item;
 import com.g8e.gameserver.models.objects.Wieldable;
 import com.g8e.gameserver.network.actions.Action;
+import com.g8e.gameserver.network.actions.ActionInbox;
 import com.g8e.gameserver.network.actions.ChangeAppearanceAction;
 import com.g8e.gameserver.network.actions.attackStyle.ChangeAttackStyleAction;
 import com.g8e.gameserver.network.actions.drop.DropItemAction;
@@ -38,7 +37,6 @@ import com.g8e.gameserver.tile.TilePosition;
 import com.g8e.gameserver.util.ExperienceUtils;
 import com.g8e.gameserver.util.SkillUtils;
 import com.g8e.util.Logger;
-import com.google.gson.Gson;
 
 public class Player extends Combatant {
     public int[] inventory = new int[12];
@@ -55,6 +53,9 @@ public class Player extends Combatant {
     private transient static final int PLAYER_STARTING_X = 17;
     private transient static final int PLAYER_STARTING_Y = 27;
     public transient int accountID;
+    public transient final ActionInbox actionInbox = new ActionInbox();
+    // Set when something stored in the database changed since the last flush
+    public transient boolean persistenceDirty = false;
 
     public transient int inventoryChanged = 1;
     public transient int inventoryAmountsChanged = 1;
@@ -205,10 +206,10 @@ public class Player extends Combatant {
                     if (targetEntityLastPosition == null ||
                             !targetEntityLastPosition.equals(currentPos)) {
 
-                        // target moved → recompute path
+                        // target moved → repair the path towards it
                         TilePosition adj = getBestAdjacentTile(target);
                         if (adj != null) {
-                            moveTo(adj);
+                            chaseTo(adj);
                             setTargetEntityLastPosition(currentPos);
                         }
                     }
@@ -281,7 +282,7 @@ public class Player extends Combatant {
 
     public void takeItem(String uniqueItemID) {
         Item item = this.world.itemsManager.getItemByUniqueItemID(uniqueItemID);
-        if (item == null) {
+        if (item == null || item.isDeleted) {
             Logger.printError("Item not found");
             this.world.chatMessages
                     .add(new ChatMessage(this.username, "Too late, it's gone!", System.currentTimeMillis(), false));
@@ -296,33 +297,26 @@ public class Player extends Combatant {
 
     }
 
+    // The save methods only mark the player dirty, World hands the row to the
+    // PlayerWriter at the end of the tick
     public void saveQuestProgress() {
-        Gson gson = new Gson();
-        String questProgressString = gson.toJson(this.questProgress);
-        try {
-            CommonQueries.savePlayerQuestProgressByAccountId(this.accountID, questProgressString);
-        } catch (SQLException e) {
-            Logger.printError("Failed to save quest progress");
-        }
+        persistenceDirty = true;
     }
 
     public void savePosition() {
-        try {
-            CommonQueries.savePlayerPositionByAccountId(this.accountID, this.worldX, this.worldY);
-        } catch (SQLException e) {
-            Logger.printError("Failed to save player position");
-        }
+        persistenceDirty = true;
     }
 
     public void saveInventory() {
-        Gson gson = new Gson();
-        String inventoryString = gson.toJson(this.inventory);
-        String inventoryAmountsString = gson.toJson(this.inventoryAmounts);
-        try {
-            CommonQueries.savePlayerInventoryByAccountId(this.accountID, inventoryString, inventoryAmountsString);
-        } catch (SQLException e) {
-            Logger.printError("Failed to save inventory");
-        }
+        persistenceDirty = true;
+    }
+
+    // Copy of everything stored in the players table
+    public DBPlayer toDBPlayer() {
+        return new DBPlayer(0, accountID, skinColor, hairColor, shirtColor, pantsColor, worldX, worldY, weapon,
+                shield, inventory.clone(), inventoryAmounts.clone(), questProgress.clone(),
+                skills[SkillUtils.ATTACK], skills[SkillUtils.STRENGTH], skills[SkillUtils.DEFENCE],
+                skills[SkillUtils.HITPOINTS]);
     }
 
     public void addXp(int skill, int xp) {
@@ -378,11 +372,7 @@ public class Player extends Combatant {
     }
 
     public void saveSkillXp(int skill) {
-        try {
-            CommonQueries.savePlayerXpByAccountId(this.accountID, skill, this.skills[skill]);
-        } catch (SQLException e) {
-            Logger.printError("Failed to save skill xp");
-        }
+        persistenceDirty = true;
     }
 
     public void setTickActions(List<Action> actions) {
@@ -393,13 +383,7 @@ public class Player extends Combatant {
                 setHairColor(changeAppearanceAction.getHairColor());
                 setShirtColor(changeAppearanceAction.getShirtColor());
                 setPantsColor(changeAppearanceAction.getPantsColor());
-
-                try {
-                    CommonQueries.savePlayerAppearanceByAccountId(
-                            this.accountID, this.skinColor, this.hairColor, this.shirtColor, this.pantsColor);
-                } catch (SQLException e) {
-                    Logger.printError(e.getMessage());
-                }
+                persistenceDirty = true;
             }
 
             if (action instanceof PlayerMove playerMove) {
@@ -1111,11 +1095,7 @@ public class Player extends Combatant {
     }
 
     public void saveWieldables() {
-        try {
-            CommonQueries.savePlayerWieldablesByAccountId(this.accountID, this.weapon, this.shield);
-        } catch (SQLException e) {
-            Logger.printError("Failed to save weapon");
-        }
+        persistenceDirty = true;
     }
 
     private void dropItem(int inventoryIndex) {
@@ -0,0 +1,82 @@
+package com.g8e.gameserver.models.objects;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for ground item despawns. Timers are hashed by their
+ * despawn tick into a fixed number of slots, each slot is an intrusive doubly
+ * linked list so scheduling, rescheduling and cancelling are O(1). Advancing
+ * only looks at the slot of the current tick, timers further away than one
+ * revolution stay in the slot until their tick comes.
+ */
+public class DespawnWheel {
+    private static final int SLOT_COUNT = 512;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+    private final DespawningItem[] slots = new DespawningItem[SLOT_COUNT];
+    private long currentTick = 0;
+    private int size = 0;
+
+    public void schedule(DespawningItem timer, int ticks) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+
+        long despawnTick = currentTick + Math.max(1, ticks);
+        timer.setDespawnTick(despawnTick);
+        link(timer, (int) (despawnTick & SLOT_MASK));
+    }
+
+    public void cancel(DespawningItem timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+    }
+
+    // Moves to the next tick and hands every item that expires on it to the callback
+    public void advance(Consumer<Item> onExpired) {
+        currentTick++;
+        int slot = (int) (currentTick & SLOT_MASK);
+
+        DespawningItem timer = slots[slot];
+        while (timer != null) {
+            DespawningItem next = timer.next;
+            if (timer.getDespawnTick() <= currentTick) {
+                unlink(timer);
+                onExpired.accept(timer.getItem());
+            }
+            timer = next;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void link(DespawningItem timer, int slot) {
+        DespawningItem head = slots[slot];
+        timer.previous = null;
+        timer.next = head;
+        if (head != null) {
+            head.previous = timer;
+        }
+        slots[slot] = timer;
+        timer.slot = slot;
+        size++;
+    }
+
+    private void unlink(DespawningItem timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.slot = -1;
+        size--;
+    }
+}
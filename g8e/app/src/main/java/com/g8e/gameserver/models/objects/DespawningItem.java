@@ -1,28 +1,31 @@
 package com.g8e.gameserver.models.objects;
 
+// Timer entry of a ground item, linked into its slot of the DespawnWheel
 public class DespawningItem {
-    private String uniqueItemID;
-    private int despawnTimer;
+    private final Item item;
+    private long despawnTick;
 
-    public DespawningItem(String uniqueItemID, int despawnTimer) {
-        this.uniqueItemID = uniqueItemID;
-        this.despawnTimer = despawnTimer;
-    }
+    DespawningItem previous;
+    DespawningItem next;
+    int slot = -1;
 
-    public String getUniqueItemID() {
-        return uniqueItemID;
+    public DespawningItem(Item item) {
+        this.item = item;
     }
 
-    public void setUniqueItemID(String uniqueItemID) {
-        this.uniqueItemID = uniqueItemID;
+    public Item getItem() {
+        return item;
     }
 
-    public int getDespawnTimer() {
-        return despawnTimer;
+    public long getDespawnTick() {
+        return despawnTick;
     }
 
-    public void setDespawnTimer(int despawnTimer) {
-        this.despawnTimer = despawnTimer;
+    void setDespawnTick(long despawnTick) {
+        this.despawnTick = despawnTick;
     }
 
+    public boolean isScheduled() {
+        return slot != -1;
+    }
 }
@@ -15,6 +15,8 @@ public class Item {
     private boolean isStackable;
     private String type;
     public boolean isDeleted;
+    public transient int handle;
+    public transient DespawningItem despawningItem;
 
     public int uniqueIDChanged = 1;
     public int itemIDChanged = 1;
@@ -0,0 +1,28 @@
+package com.g8e.gameserver.network;
+
+import com.g8e.gameserver.models.entities.Player;
+import com.g8e.gameserver.network.compressing.CompressionMode;
+import com.g8e.gameserver.network.compressing.StreamCompressor;
+import com.g8e.gameserver.network.encoding.WireProtocol;
+
+// Attached to the WebSocket of every logged in client
+public class ClientSession {
+    public final Player player;
+    public final WireProtocol protocol;
+    public final CompressionMode compression;
+    // Only set for STREAM compression
+    public final StreamCompressor compressor;
+
+    public ClientSession(Player player, WireProtocol protocol, CompressionMode compression, int compressionLevel) {
+        this.player = player;
+        this.protocol = protocol;
+        this.compression = compression;
+        this.compressor = compression == CompressionMode.STREAM ? new StreamCompressor(compressionLevel) : null;
+    }
+
+    public void close() {
+        if (compressor != null) {
+            compressor.close();
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class GameState {
     private List<ChatMessage> chatMessages;
     private String playerID;
     private List<DTOItem> items;
+    private List<String> outOfRangeNpcs;
     private final List<String> onlinePlayers;
 
     public GameState(List<AttackEvent> tickAttackEvents, List<TalkEvent> tickTalkEvents,
@@ -116,4 +117,12 @@ public class GameState {
     public void setItems(List<DTOItem> items) {
         this.items = items;
     }
+
+    public List<String> getOutOfRangeNpcs() {
+        return outOfRangeNpcs;
+    }
+
+    public void setOutOfRangeNpcs(List<String> outOfRangeNpcs) {
+        this.outOfRangeNpcs = outOfRangeNpcs;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.g8e.gameserver.network;
+
+import java.util.Collection;
+import java.util.function.ToIntFunction;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+
+import com.g8e.gameserver.enums.TickPhase;
+import com.g8e.gameserver.network.compressing.CompressionDictionary;
+import com.g8e.gameserver.network.compressing.CompressionMode;
+import com.g8e.gameserver.network.compressing.FrameCompressor;
+import com.g8e.gameserver.network.compressing.StreamCompressor;
+import com.g8e.gameserver.network.encoding.BinaryGameStateEncoder;
+import com.g8e.gameserver.network.encoding.JsonGameStateEncoder;
+import com.g8e.gameserver.network.encoding.WireProtocol;
+import com.g8e.gameserver.util.Metrics;
+import com.g8e.gameserver.util.TickProfiler;
+import com.g8e.util.Logger;
+
+public class GameStateBroadcaster {
+    private final JsonGameStateEncoder jsonEncoder = new JsonGameStateEncoder();
+    private final BinaryGameStateEncoder binaryEncoder;
+    private final TickProfiler profiler;
+    private final GameStateRecorder recorder = GameStateRecorder.fromConfig();
+    private final FrameCompressor frameCompressor;
+
+    private long tickEncodeNanos;
+    private long tickJsonBytes;
+    private long tickBinaryBytes;
+    private long tickStreamBytes;
+    private long tickDictionaryBytes;
+    private int tickConnections;
+
+    public GameStateBroadcaster(ToIntFunction<String> entityHandles, TickProfiler profiler,
+            FrameCompressor frameCompressor) {
+        this.binaryEncoder = new BinaryGameStateEncoder(entityHandles);
+        this.profiler = profiler;
+        this.frameCompressor = frameCompressor;
+    }
+
+    public void beginTick() {
+        tickEncodeNanos = 0;
+        tickJsonBytes = 0;
+        tickBinaryBytes = 0;
+        tickStreamBytes = 0;
+        tickDictionaryBytes = 0;
+        tickConnections = 0;
+    }
+
+    public void endTick() {
+        Metrics.setGauge("broadcast.encodeMicros", tickEncodeNanos / 1000);
+        Metrics.setGauge("broadcast.jsonBytes", tickJsonBytes);
+        Metrics.setGauge("broadcast.binaryBytes", tickBinaryBytes);
+        Metrics.setGauge("broadcast.streamBytes", tickStreamBytes);
+        Metrics.setGauge("broadcast.dictionaryBytes", tickDictionaryBytes);
+        Metrics.setGauge("broadcast.connections", tickConnections);
+        frameCompressor.publish();
+    }
+
+    // Encodes the state once per protocol, every connection using the same
+    // protocol and compression gets the same frame. Connections with a
+    // compression stream get those bytes compressed with their own deflater.
+    public void broadcast(GameState gameState, Collection<WebSocket> connections) {
+        if (connections.isEmpty()) {
+            return;
+        }
+
+        byte[] jsonData = null;
+        byte[] jsonPayload = null;
+        byte[] dictionaryPayload = null;
+        byte[] binaryData = null;
+        byte[] binaryPayload = null;
+
+        for (WebSocket conn : connections) {
+            ClientSession session = conn.getAttachment();
+            WireProtocol protocol = session != null ? session.protocol : WireProtocol.JSON;
+            StreamCompressor compressor = session != null ? session.compressor : null;
+
+            byte[] payload;
+            if (protocol == WireProtocol.BINARY) {
+                if (binaryData == null) {
+                    binaryData = encodeBinary(gameState);
+                }
+                if (compressor != null) {
+                    payload = compressStream(compressor, binaryData);
+                } else {
+                    if (binaryPayload == null) {
+                        binaryPayload = compressMessage(binaryData, null);
+                    }
+                    payload = binaryPayload;
+                }
+            } else {
+                if (jsonData == null) {
+                    jsonData = encodeJson(gameState);
+                }
+                if (compressor != null) {
+                    payload = compressStream(compressor, jsonData);
+                } else if (session != null && session.compression == CompressionMode.DICTIONARY) {
+                    if (dictionaryPayload == null) {
+                        dictionaryPayload = compressMessage(jsonData, CompressionDictionary.SHIPPED.bytes);
+                        tickDictionaryBytes += dictionaryPayload != null ? dictionaryPayload.length : 0;
+                    }
+                    payload = dictionaryPayload;
+                } else {
+                    if (jsonPayload == null) {
+                        jsonPayload = compressMessage(jsonData, null);
+                        tickJsonBytes += jsonPayload != null ? jsonPayload.length : 0;
+                    }
+                    payload = jsonPayload;
+                }
+            }
+
+            if (payload == null) {
+                continue;
+            }
+
+            TickPhase previous = profiler.enter(TickPhase.SEND);
+            try {
+                conn.send(payload);
+                tickConnections++;
+                Metrics.add(protocol == WireProtocol.BINARY ? "broadcast.binaryBytesSent"
+                        : "broadcast.jsonBytesSent", payload.length);
+            } catch (WebsocketNotConnectedException e) {
+                Logger.printInfo("Connection " + conn
+                        + " is not connected, probably in combat and waiting to be logged out");
+            } finally {
+                profiler.exit(previous);
+            }
+        }
+    }
+
+    // The encoders reuse their buffers
+    private synchronized byte[] encodeJson(GameState gameState) {
+        TickPhase previous = profiler.enter(TickPhase.ENCODE);
+        long encodeStart = System.nanoTime();
+        byte[] data = jsonEncoder.encode(gameState);
+        tickEncodeNanos += System.nanoTime() - encodeStart;
+        profiler.exit(previous);
+
+        if (recorder != null) {
+            recorder.record(data);
+        }
+        return data;
+    }
+
+    private byte[] compressMessage(byte[] data, byte[] dictionary) {
+        TickPhase previous = profiler.enter(TickPhase.ENCODE);
+        long encodeStart = System.nanoTime();
+        byte[] compressedData = frameCompressor.compress(data, dictionary);
+        tickEncodeNanos += System.nanoTime() - encodeStart;
+        profiler.exit(previous);
+        return compressedData;
+    }
+
+    private byte[] compressStream(StreamCompressor compressor, byte[] data) {
+        TickPhase previous = profiler.enter(TickPhase.ENCODE);
+        long encodeStart = System.nanoTime();
+        byte[] compressedData = frameCompressor.compress(data, compressor);
+        tickEncodeNanos += System.nanoTime() - encodeStart;
+        profiler.exit(previous);
+
+        if (compressedData != null) {
+            tickStreamBytes += compressedData.length;
+        }
+        return compressedData;
+    }
+
+    private synchronized byte[] encodeBinary(GameState gameState) {
+        TickPhase previous = profiler.enter(TickPhase.ENCODE);
+        long encodeStart = System.nanoTime();
+        byte[] data = binaryEncoder.encode(gameState);
+        tickEncodeNanos += System.nanoTime() - encodeStart;
+        profiler.exit(previous);
+
+        tickBinaryBytes += data.length;
+        return data;
+    }
+}
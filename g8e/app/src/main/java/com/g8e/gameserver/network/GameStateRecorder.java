@@ -0,0 +1,55 @@
+package com.g8e.gameserver.network;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.g8e.gameserver.util.GameConstants;
+import com.g8e.util.Logger;
+
+// Writes every n-th encoded JSON state to a directory, the samples the
+// compression dictionary is built from
+public class GameStateRecorder {
+    private final Path directory;
+    private final int every;
+    private final int limit;
+    private int seen = 0;
+    private int written = 0;
+
+    public GameStateRecorder(Path directory, int every, int limit) {
+        this.directory = directory;
+        this.every = Math.max(1, every);
+        this.limit = limit;
+    }
+
+    // Null unless STATE_SAMPLE_DIR is set
+    public static GameStateRecorder fromConfig() {
+        if (GameConstants.STATE_SAMPLE_DIR.isEmpty()) {
+            return null;
+        }
+
+        Path directory = Paths.get(GameConstants.STATE_SAMPLE_DIR);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            Logger.printError("Failed to create state sample directory: " + e.getMessage());
+            return null;
+        }
+        Logger.printInfo("Recording game state samples to " + directory.toAbsolutePath());
+        return new GameStateRecorder(directory, GameConstants.STATE_SAMPLE_EVERY, GameConstants.STATE_SAMPLE_LIMIT);
+    }
+
+    public void record(byte[] json) {
+        if (written >= limit || seen++ % every != 0) {
+            return;
+        }
+
+        try {
+            Files.write(directory.resolve(String.format("state-%05d.json", written)), json);
+            written++;
+        } catch (IOException e) {
+            Logger.printError("Failed to record game state sample: " + e.getMessage());
+        }
+    }
+}
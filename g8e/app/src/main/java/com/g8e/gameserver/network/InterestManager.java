@@ -0,0 +1,374 @@
+package com.g8e.gameserver.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.java_websocket.WebSocket;
+
+import com.g8e.gameserver.World;
+import com.g8e.gameserver.models.ChatMessage;
+import com.g8e.gameserver.models.entities.Npc;
+import com.g8e.gameserver.models.entities.Player;
+import com.g8e.gameserver.models.events.AttackEvent;
+import com.g8e.gameserver.models.events.SoundEvent;
+import com.g8e.gameserver.models.events.TalkEvent;
+import com.g8e.gameserver.models.events.TradeEvent;
+import com.g8e.gameserver.models.objects.Item;
+import com.g8e.gameserver.network.dataTransferModels.DTOItem;
+import com.g8e.gameserver.network.dataTransferModels.DTONpc;
+import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+import com.g8e.gameserver.tile.TileManager;
+import com.g8e.gameserver.util.Metrics;
+
+/**
+ * Splits the outgoing game state by chunk so that every client only receives
+ * what happens in its own chunk and the neighboring ones. Clients standing in
+ * the same chunk share one encoded payload.
+ */
+public class InterestManager {
+    // Bucket for things that cannot be placed on the map, visible to everyone
+    private static final int GLOBAL_CHUNK = -1;
+
+    private final World world;
+    private final GameStateBroadcaster broadcaster;
+
+    private final Map<Integer, ChunkState> chunkStates = new HashMap<>();
+    private final Map<String, Integer> entityChunks = new HashMap<>();
+    private final Map<String, Integer> usernameChunks = new HashMap<>();
+    private final List<NpcChunkMove> npcMoves = new ArrayList<>();
+
+    private static class ChunkState {
+        final List<Player> players = new ArrayList<>();
+        final List<Npc> npcs = new ArrayList<>();
+        final List<Item> items = new ArrayList<>();
+
+        final List<DTOPlayer> playerDeltas = new ArrayList<>();
+        final List<DTONpc> npcDeltas = new ArrayList<>();
+        final List<DTOItem> itemDeltas = new ArrayList<>();
+
+        final List<AttackEvent> attackEvents = new ArrayList<>();
+        final List<TalkEvent> talkEvents = new ArrayList<>();
+        final List<TradeEvent> tradeEvents = new ArrayList<>();
+        final List<SoundEvent> soundEvents = new ArrayList<>();
+        final List<ChatMessage> chatMessages = new ArrayList<>();
+
+        final List<WebSocket> recipients = new ArrayList<>();
+
+        void clear() {
+            players.clear();
+            npcs.clear();
+            items.clear();
+            playerDeltas.clear();
+            npcDeltas.clear();
+            itemDeltas.clear();
+            attackEvents.clear();
+            talkEvents.clear();
+            tradeEvents.clear();
+            soundEvents.clear();
+            chatMessages.clear();
+            recipients.clear();
+        }
+    }
+
+    private record NpcChunkMove(String entityID, int fromChunk, int toChunk) {
+    }
+
+    public InterestManager(World world, GameStateBroadcaster broadcaster) {
+        this.world = world;
+        this.broadcaster = broadcaster;
+    }
+
+    public void broadcastTick() {
+        chunkStates.values().forEach(ChunkState::clear);
+        entityChunks.clear();
+        usernameChunks.clear();
+        npcMoves.clear();
+
+        collectEntities();
+        collectEvents();
+
+        List<WebSocket> crossingConnections = new ArrayList<>();
+        for (WebSocket conn : world.connections) {
+            if (conn == null || conn.getAttachment() == null) {
+                continue;
+            }
+
+            Player player = ((ClientSession) conn.getAttachment()).player;
+            int chunk = player.getCurrentChunk();
+            if (chunk == player.lastBroadcastChunk) {
+                getChunkState(chunk).recipients.add(conn);
+            } else {
+                crossingConnections.add(conn);
+            }
+        }
+
+        broadcaster.beginTick();
+        int groups = 0;
+        for (Map.Entry<Integer, ChunkState> entry : chunkStates.entrySet()) {
+            if (entry.getValue().recipients.isEmpty()) {
+                continue;
+            }
+
+            GameState gameState = buildState(entry.getKey());
+            broadcaster.broadcast(gameState, entry.getValue().recipients);
+            groups++;
+        }
+
+        // Clients that changed chunk get their own payload with enter and leave
+        // snapshots for the chunks that came into or went out of view
+        for (WebSocket conn : crossingConnections) {
+            Player player = ((ClientSession) conn.getAttachment()).player;
+            int chunk = player.getCurrentChunk();
+
+            GameState gameState = buildState(chunk);
+            addCrossingSnapshots(gameState, player.lastBroadcastChunk, chunk);
+            broadcaster.broadcast(gameState, List.of(conn));
+        }
+
+        broadcaster.endTick();
+
+        Metrics.setGauge("interest.groups", groups);
+        Metrics.setGauge("interest.crossings", crossingConnections.size());
+
+        world.players.forEach(player -> player.lastBroadcastChunk = player.getCurrentChunk());
+        world.npcs.forEach(npc -> npc.lastBroadcastChunk = npc.getCurrentChunk());
+    }
+
+    // Everything visible from the player's chunk, used when the player logs in
+    public GameState buildInitialState(Player player, List<ChatMessage> chatMessages) {
+        TileManager tileManager = world.tileManager;
+        int chunk = player.getCurrentChunk();
+
+        List<DTOPlayer> dtoPlayers = new ArrayList<>();
+        List<String> visiblePlayers = new ArrayList<>();
+        for (Player other : world.players) {
+            if (tileManager.isChunkVisibleFrom(other.getCurrentChunk(), chunk)) {
+                dtoPlayers.add(new DTOPlayer(other, true));
+                visiblePlayers.add(other.entityID);
+            }
+        }
+
+        List<DTONpc> dtoNpcs = new ArrayList<>();
+        for (Npc npc : world.npcs) {
+            if (tileManager.isChunkVisibleFrom(npc.getCurrentChunk(), chunk)) {
+                dtoNpcs.add(new DTONpc(npc, true));
+            }
+        }
+
+        List<DTOItem> dtoItems = new ArrayList<>();
+        for (Item item : world.items) {
+            if (tileManager.isChunkVisibleFrom(getItemChunk(item), chunk)) {
+                dtoItems.add(new DTOItem(item, true));
+            }
+        }
+
+        player.lastBroadcastChunk = chunk;
+
+        return new GameState(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                dtoPlayers, dtoNpcs, chatMessages, dtoItems, player.entityID, visiblePlayers);
+    }
+
+    public void sendInitialState(GameState gameState, WebSocket conn) {
+        broadcaster.broadcast(gameState, List.of(conn));
+    }
+
+    private void collectEntities() {
+        for (Player player : world.players) {
+            int chunk = player.getCurrentChunk();
+            ChunkState state = getChunkState(chunk);
+            state.players.add(player);
+            entityChunks.put(player.entityID, chunk);
+            usernameChunks.put(player.username, chunk);
+
+            // Send everything when the player shows up in a new chunk, observers
+            // of that chunk might not have seen it before
+            DTOPlayer dto = player.lastBroadcastChunk != chunk ? new DTOPlayer(player, true) : new DTOPlayer(player);
+            if (!dto.hasOnlyEntityId()) {
+                state.playerDeltas.add(dto);
+            }
+        }
+
+        for (Npc npc : world.npcs) {
+            int chunk = npc.getCurrentChunk();
+            ChunkState state = getChunkState(chunk);
+            state.npcs.add(npc);
+            entityChunks.put(npc.entityID, chunk);
+
+            DTONpc dto;
+            if (npc.lastBroadcastChunk != chunk) {
+                dto = new DTONpc(npc, true);
+                if (npc.lastBroadcastChunk != -1) {
+                    npcMoves.add(new NpcChunkMove(npc.entityID, npc.lastBroadcastChunk, chunk));
+                }
+            } else {
+                dto = new DTONpc(npc);
+            }
+
+            if (!dto.hasOnlyEntityId()) {
+                state.npcDeltas.add(dto);
+            }
+        }
+
+        for (Item item : world.items) {
+            ChunkState state = getChunkState(getItemChunk(item));
+            state.items.add(item);
+
+            DTOItem dto = new DTOItem(item);
+            if (!dto.hasOnlyUniqueId()) {
+                state.itemDeltas.add(dto);
+            }
+        }
+    }
+
+    private void collectEvents() {
+        for (AttackEvent event : world.tickAttackEvents) {
+            getChunkState(entityChunks.getOrDefault(event.attackerID, GLOBAL_CHUNK)).attackEvents.add(event);
+        }
+
+        for (TalkEvent event : world.tickTalkEvents) {
+            getChunkState(entityChunks.getOrDefault(event.talkerID, GLOBAL_CHUNK)).talkEvents.add(event);
+        }
+
+        for (TradeEvent event : world.tickTradeEvents) {
+            getChunkState(entityChunks.getOrDefault(event.traderID, GLOBAL_CHUNK)).tradeEvents.add(event);
+        }
+
+        for (SoundEvent event : world.tickSoundEvents) {
+            getChunkState(entityChunks.getOrDefault(event.entityID, GLOBAL_CHUNK)).soundEvents.add(event);
+        }
+
+        // Global chat goes to everyone, other chat is local to the sender.
+        // Messages without a sender in the world, like the ones for a player
+        // who just logged out, have nobody to go to
+        for (ChatMessage chatMessage : world.chatMessages) {
+            if (chatMessage.isGlobal()) {
+                getChunkState(GLOBAL_CHUNK).chatMessages.add(chatMessage);
+                continue;
+            }
+            Integer chunk = usernameChunks.get(chatMessage.getSenderName());
+            if (chunk != null) {
+                getChunkState(chunk).chatMessages.add(chatMessage);
+            }
+        }
+    }
+
+    private GameState buildState(int chunk) {
+        List<AttackEvent> attackEvents = new ArrayList<>();
+        List<TalkEvent> talkEvents = new ArrayList<>();
+        List<TradeEvent> tradeEvents = new ArrayList<>();
+        List<SoundEvent> soundEvents = new ArrayList<>();
+        List<DTOPlayer> dtoPlayers = new ArrayList<>();
+        List<DTONpc> dtoNpcs = new ArrayList<>();
+        List<ChatMessage> chatMessages = new ArrayList<>();
+        List<DTOItem> dtoItems = new ArrayList<>();
+        List<String> visiblePlayers = new ArrayList<>();
+
+        for (Map.Entry<Integer, ChunkState> entry : chunkStates.entrySet()) {
+            int otherChunk = entry.getKey();
+            if (otherChunk != GLOBAL_CHUNK && !world.tileManager.isChunkVisibleFrom(otherChunk, chunk)) {
+                continue;
+            }
+
+            ChunkState state = entry.getValue();
+            attackEvents.addAll(state.attackEvents);
+            talkEvents.addAll(state.talkEvents);
+            tradeEvents.addAll(state.tradeEvents);
+            soundEvents.addAll(state.soundEvents);
+            dtoPlayers.addAll(state.playerDeltas);
+            dtoNpcs.addAll(state.npcDeltas);
+            chatMessages.addAll(state.chatMessages);
+            dtoItems.addAll(state.itemDeltas);
+            state.players.forEach(player -> visiblePlayers.add(player.entityID));
+        }
+
+        GameState gameState = new GameState(attackEvents, talkEvents, tradeEvents, soundEvents,
+                dtoPlayers, dtoNpcs, chatMessages, dtoItems, null, visiblePlayers);
+
+        // Npcs that walked out of view this tick
+        List<String> outOfRangeNpcs = new ArrayList<>();
+        for (NpcChunkMove move : npcMoves) {
+            if (world.tileManager.isChunkVisibleFrom(move.fromChunk(), chunk)
+                    && !world.tileManager.isChunkVisibleFrom(move.toChunk(), chunk)) {
+                outOfRangeNpcs.add(move.entityID());
+            }
+        }
+        gameState.setOutOfRangeNpcs(outOfRangeNpcs);
+
+        removeEmptyCollections(gameState);
+        return gameState;
+    }
+
+    private void addCrossingSnapshots(GameState gameState, int fromChunk, int toChunk) {
+        List<DTOPlayer> dtoPlayers = orEmpty(gameState.getPlayers());
+        List<DTONpc> dtoNpcs = orEmpty(gameState.getNpcs());
+        List<DTOItem> dtoItems = orEmpty(gameState.getItems());
+        List<String> outOfRangeNpcs = orEmpty(gameState.getOutOfRangeNpcs());
+
+        for (Map.Entry<Integer, ChunkState> entry : chunkStates.entrySet()) {
+            int chunk = entry.getKey();
+            if (chunk == GLOBAL_CHUNK) {
+                continue;
+            }
+
+            boolean visibleBefore = world.tileManager.isChunkVisibleFrom(chunk, fromChunk);
+            boolean visibleNow = world.tileManager.isChunkVisibleFrom(chunk, toChunk);
+            ChunkState state = entry.getValue();
+
+            if (visibleNow && !visibleBefore) {
+                state.players.forEach(player -> dtoPlayers.add(new DTOPlayer(player, true)));
+                state.npcs.forEach(npc -> dtoNpcs.add(new DTONpc(npc, true)));
+                state.items.forEach(item -> dtoItems.add(new DTOItem(item, true)));
+            } else if (visibleBefore && !visibleNow) {
+                // Players are dropped by the client when they are missing from onlinePlayers
+                state.npcs.forEach(npc -> outOfRangeNpcs.add(npc.entityID));
+                state.items.forEach(item -> dtoItems.add(DTOItem.outOfRange(item)));
+            }
+        }
+
+        gameState.setPlayers(dtoPlayers);
+        gameState.setNpcs(dtoNpcs);
+        gameState.setItems(dtoItems);
+        gameState.setOutOfRangeNpcs(outOfRangeNpcs);
+        removeEmptyCollections(gameState);
+    }
+
+    private ChunkState getChunkState(int chunk) {
+        return chunkStates.computeIfAbsent(chunk, key -> new ChunkState());
+    }
+
+    private int getItemChunk(Item item) {
+        return world.tileManager.getChunkByWorldXandY(item.getWorldX(), item.getWorldY());
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : new ArrayList<>();
+    }
+
+    private void removeEmptyCollections(GameState state) {
+        if (isEmpty(state.getTickAttackEvents()))
+            state.setTickAttackEvents(null);
+        if (isEmpty(state.getTickTalkEvents()))
+            state.setTickTalkEvents(null);
+        if (isEmpty(state.getTickTradeEvents()))
+            state.setTickTradeEvents(null);
+        if (isEmpty(state.getTickSoundEvents()))
+            state.setTickSoundEvents(null);
+
+        if (isEmpty(state.getPlayers()))
+            state.setPlayers(null);
+        if (isEmpty(state.getNpcs()))
+            state.setNpcs(null);
+        if (isEmpty(state.getItems()))
+            state.setItems(null);
+        if (isEmpty(state.getChatMessages()))
+            state.setChatMessages(null);
+        if (isEmpty(state.getOutOfRangeNpcs()))
+            state.setOutOfRangeNpcs(null);
+    }
+
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+}
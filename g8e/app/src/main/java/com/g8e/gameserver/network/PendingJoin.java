@@ -0,0 +1,58 @@
+package com.g8e.gameserver.network;
+
+import org.java_websocket.WebSocket;
+
+import com.g8e.gameserver.World;
+import com.g8e.gameserver.models.ChatMessage;
+import com.g8e.gameserver.models.entities.Player;
+import com.g8e.gameserver.network.compressing.CompressionMode;
+import com.g8e.gameserver.network.encoding.WireProtocol;
+import com.g8e.gameserver.util.GameConstants;
+import com.g8e.gameserver.util.Metrics;
+
+// A player loaded off the tick thread, waiting to be added at the next tick
+public class PendingJoin {
+    private final WebSocket conn;
+    private final Player player;
+    private final WireProtocol protocol;
+    private final CompressionMode compression;
+    private final long queuedNanos = System.nanoTime();
+
+    public PendingJoin(WebSocket conn, Player player, WireProtocol protocol, CompressionMode compression) {
+        this.conn = conn;
+        this.player = player;
+        this.protocol = protocol;
+        this.compression = compression;
+    }
+
+    // Runs on the tick thread
+    public void complete(World world) {
+        if (!conn.isOpen()) {
+            Metrics.increment("connect.abandoned");
+            return;
+        }
+
+        world.addConnection(conn);
+        conn.setAttachment(new ClientSession(player, protocol, compression, GameConstants.STREAM_COMPRESSION_LEVEL));
+        world.addPlayer(player);
+
+        GameState gameState = world.interestManager.buildInitialState(player, world.getChatMessages());
+        world.interestManager.sendInitialState(gameState, conn);
+        addDefaultChatMessages(world);
+
+        Metrics.increment("connect.joined");
+        Metrics.setGauge("connect.joinWaitMicros", (System.nanoTime() - queuedNanos) / 1000);
+    }
+
+    private void addDefaultChatMessages(World world) {
+        ChatMessage welcomeMessage = new ChatMessage(player.username, "Welcome to the game!",
+                System.currentTimeMillis(),
+                false);
+
+        ChatMessage tutorialMessage = new ChatMessage(player.username,
+                "You can interact with the world using your mouse.", System.currentTimeMillis(), false);
+
+        world.addChatMessage(welcomeMessage);
+        world.addChatMessage(tutorialMessage);
+    }
+}
@@ -1,9 +1,10 @@
 package com.g8e.gameserver.network;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.java_websocket.WebSocket;
 
@@ -13,10 +14,6 @@ import com.g8e.db.models.DBPlayer;
 import com.g8e.gameserver.World;
 import com.g8e.gameserver.models.ChatMessage;
 import com.g8e.gameserver.models.entities.Player;
-import com.g8e.gameserver.models.events.AttackEvent;
-import com.g8e.gameserver.models.events.SoundEvent;
-import com.g8e.gameserver.models.events.TalkEvent;
-import com.g8e.gameserver.models.events.TradeEvent;
 import com.g8e.gameserver.network.actions.Action;
 import com.g8e.gameserver.network.actions.ChangeAppearanceAction;
 import com.g8e.gameserver.network.actions.attackStyle.ChangeAttackStyleAction;
@@ -39,21 +36,37 @@ import com.g8e.gameserver.network.actions.shop.TradeMoveAction;
 import com.g8e.gameserver.network.actions.use.UseItemAction;
 import com.g8e.gameserver.network.actions.wield.UnwieldAction;
 import com.g8e.gameserver.network.actions.wield.WieldItemAction;
-import com.g8e.gameserver.network.compressing.Compress;
-import com.g8e.gameserver.network.dataTransferModels.DTOItem;
-import com.g8e.gameserver.network.dataTransferModels.DTONpc;
-import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+import com.g8e.gameserver.network.compressing.CompressionMode;
+import com.g8e.gameserver.network.encoding.WireProtocol;
+import com.g8e.gameserver.util.GameConstants;
+import com.g8e.gameserver.util.Metrics;
 import com.g8e.util.Logger;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 
 public class WebSocketEventsHandler {
     private final World world;
+    private final ExecutorService connectExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Gson is thread safe and caches its type adapters, so one instance serves every message
+    private final Gson gson = new Gson();
+    private final Map<String, MessageHandler> handlers = new HashMap<>();
+
+    // Binds the parsed tree and returns what to do with it, so decoding is
+    // timed and checked apart from the effects
+    private interface MessageHandler {
+        Runnable decode(WebSocket conn, JsonObject json);
+    }
 
     public WebSocketEventsHandler(World world) {
         this.world = world;
-
+        registerHandlers();
     }
 
+    // Runs on the WebSocket thread, so the database work is handed to a
+    // virtual thread and the player joins the world at the next tick
     public void handleConnection(WebSocket conn, Map<String, String> queryParams) {
         String loginToken = queryParams.get("loginToken");
         if (loginToken == null) {
@@ -62,6 +75,15 @@ public class WebSocketEventsHandler {
             return;
         }
 
+        WireProtocol protocol = WireProtocol.fromQueryParam(queryParams.get("protocol"));
+        CompressionMode compression = CompressionMode.fromQueryParam(queryParams.get("compression"),
+                queryParams.get("dictionary"));
+        connectExecutor.execute(() -> loadPlayer(conn, loginToken, protocol, compression));
+    }
+
+    private void loadPlayer(WebSocket conn, String loginToken, WireProtocol protocol,
+            CompressionMode compression) {
+        long start = System.nanoTime();
         DBAccount account;
         try {
             account = CommonQueries.getAccountByLoginToken(loginToken);
@@ -73,6 +95,13 @@ public class WebSocketEventsHandler {
 
             DBPlayer player;
 
+            // The previous session of the account may still be leaving, and its
+            // logout row may still be waiting in the writer
+            if (!world.awaitLogout(account.getAccountId(), GameConstants.RECONNECT_WAIT_MS)) {
+                Metrics.increment("connect.logoutWaitTimeouts");
+                Logger.printWarning(account.getUsername() + " reconnected before the previous session logged out");
+            }
+            world.playerWriter.flushNow();
             player = CommonQueries.getPlayerByAccountId(account.getAccountId());
 
             if (player == null) {
@@ -81,174 +110,127 @@ public class WebSocketEventsHandler {
                 return;
             }
 
-            world.addConnection(conn);
-
             String uniquePlayerID = conn.toString();
 
             Player playerToBeAdded = new Player(this.world, player, uniquePlayerID, account.getUsername(),
                     account.getAccountId());
 
-            world.addPlayer(playerToBeAdded);
-
-            List<DTONpc> npcs = this.world.npcs.stream().map(p -> new DTONpc(p, true))
-                    .toList();
-            List<DTOPlayer> dtoPlayers = this.world.players.stream().map(p -> new DTOPlayer(p, true))
-                    .toList();
-            List<DTOItem> dtoItems = this.world.items.stream().map(p -> new DTOItem(p, true))
-                    .toList();
-            List<AttackEvent> attackEvents = new ArrayList<>();
-            List<TalkEvent> talkEvents = new ArrayList<>();
-            List<TradeEvent> tradeEvents = new ArrayList<>();
-            List<SoundEvent> soundEvents = new ArrayList<>();
-
-            GameState gameState = new GameState(attackEvents, talkEvents, tradeEvents,
-                    soundEvents,
-                    dtoPlayers,
-                    npcs,
-                    world.getChatMessages(),
-                    dtoItems,
-                    conn.toString(),
-                    world.getOnlinePlayers());
-
-            String gameStateJson = new Gson().toJson(gameState);
-            byte[] compressedData = Compress.compress(gameStateJson);
-
-            conn.send(compressedData);
-            addDefaultChatMessages(playerToBeAdded.username);
+            world.queueJoin(new PendingJoin(conn, playerToBeAdded, protocol, compression));
+            Metrics.setGauge("connect.loadMicros", (System.nanoTime() - start) / 1000);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conn.close();
         } catch (SQLException e) {
+            Metrics.increment("connect.failures");
             Logger.printError(loginToken + " failed to connect to the game server");
             Logger.printError(e.getMessage());
+            conn.close();
         }
     }
 
-    private void addDefaultChatMessages(String name) {
-        ChatMessage welcomeMessage = new ChatMessage(name, "Welcome to the game!",
-                System.currentTimeMillis(),
-                false);
-
-        ChatMessage tutorialMessage = new ChatMessage(name,
-                "You can interact with the world using your mouse.", System.currentTimeMillis(), false);
-
-        world.addChatMessage(welcomeMessage);
-        world.addChatMessage(tutorialMessage);
-    }
-
+    // Parses the message once, the action field picks the handler that binds
+    // the parsed tree to its class. Messages that do not bind, like a string
+    // for a number or a missing field, are counted as malformed
     public void handleMessage(WebSocket conn, String message) {
-        Gson gson = new Gson();
-        Action parsedMessage = gson.fromJson(message, Action.class);
-        String action = parsedMessage.getAction();
-        String playerID = parsedMessage.getPlayerID();
-
-        switch (action) {
-            case "logOut" -> {
-                this.world.removePlayer(conn);
-                conn.close();
-            }
-            case "ping" -> conn.send("pong");
-            case "changeAppearance" -> {
-                ChangeAppearanceAction changeAppearanceAction = gson.fromJson(message, ChangeAppearanceAction.class);
-                this.world.enqueueAction(changeAppearanceAction);
-            }
-            case "playerMove" -> {
-                PlayerMove playerMoveAction = gson.fromJson(message, PlayerMove.class);
-                int x = playerMoveAction.getX();
-                int y = playerMoveAction.getY();
-
-                this.world.enqueueAction(new PlayerMove(playerID, new PlayerMoveData(x, y)));
-            }
-
-            case "playerAttackMove" -> {
-                PlayerAttackMove playerAttackMoveAction = gson.fromJson(message, PlayerAttackMove.class);
-
-                String entityID = playerAttackMoveAction.getEntityID();
-                this.world.enqueueAction(
-                        new PlayerAttackMove(playerID, new PlayerAttackMoveData(entityID)));
-            }
-
-            case "chatMessage" -> {
-                ChatMessageAction chatMessage = gson.fromJson(message, ChatMessageAction.class);
-                Player player = this.world.players.stream().filter(p -> p.entityID.equals(playerID)).findFirst().get();
-                String senderName = player != null ? player.username : "";
-                ChatMessage chatMessageModel = new ChatMessage(senderName, chatMessage.getMessage(),
-                        chatMessage.getTimeSent(), chatMessage.isGlobal());
-                this.world.addChatMessage(chatMessageModel);
-            }
-
-            case "dropItem" -> {
-                DropItemAction dropItemAction = gson.fromJson(message, DropItemAction.class);
-                this.world.enqueueAction(dropItemAction);
-            }
+        long start = System.nanoTime();
+        JsonObject json;
+        String action;
+        try {
+            json = JsonParser.parseString(message).getAsJsonObject();
+            JsonElement actionElement = json.get("action");
+            action = actionElement != null && actionElement.isJsonPrimitive() ? actionElement.getAsString() : null;
+        } catch (JsonParseException | IllegalStateException e) {
+            Metrics.increment("inbound.malformed");
+            Logger.printWarning("Invalid JSON received: " + message);
+            return;
+        }
 
-            case "wieldItem" -> {
-                WieldItemAction wieldItemAction = gson.fromJson(message, WieldItemAction.class);
-                this.world.enqueueAction(wieldItemAction);
-            }
+        MessageHandler handler = action != null ? handlers.get(action) : null;
+        if (handler == null) {
+            Metrics.increment("inbound.unknown");
+            return;
+        }
 
-            case "unwieldItem" -> {
-                UnwieldAction unwieldItemAction = gson.fromJson(message, UnwieldAction.class);
-                this.world.enqueueAction(unwieldItemAction);
-            }
-            case "playerTakeMove" -> {
-                PlayerTakeMoveAction playerTakeMoveAction = gson.fromJson(message, PlayerTakeMoveAction.class);
-                this.world.enqueueAction(playerTakeMoveAction);
-            }
+        Runnable effect;
+        try {
+            effect = handler.decode(conn, json);
+        } catch (RuntimeException e) {
+            Metrics.increment("inbound.malformed");
+            Logger.printWarning("Invalid " + action + " message received: " + message);
+            return;
+        }
+        Metrics.add("inbound.decodeNanos", System.nanoTime() - start);
 
-            case "useItem" -> {
-                UseItemAction useItemAction = gson.fromJson(message, UseItemAction.class);
-                this.world.enqueueAction(useItemAction);
-            }
+        effect.run();
+        Metrics.increment("inbound.messages");
+    }
 
-            case "eatItem" -> {
-                EatItemAction eatItemAction = gson.fromJson(message, EatItemAction.class);
-                this.world.enqueueAction(eatItemAction);
-            }
-            case "questProgressUpdate" -> {
-                QuestProgressUpdateAction questProgressUpdateAction = gson.fromJson(message,
-                        QuestProgressUpdateAction.class);
-                this.world.enqueueAction(questProgressUpdateAction);
-            }
-            case "playerTalkMove" -> {
-                PlayerTalkMoveAction playerTalkMoveAction = gson.fromJson(message, PlayerTalkMoveAction.class);
-                this.world.enqueueAction(playerTalkMoveAction);
-            }
-            case "changeAttackStyle" -> {
-                ChangeAttackStyleAction changeAttackStyleAction = gson.fromJson(message, ChangeAttackStyleAction.class);
-                this.world.enqueueAction(changeAttackStyleAction);
-            }
-            case "removeItemFromInventory" -> {
-                RemoveItemFromInventoryAction removeItemFromInventoryAction = gson.fromJson(message,
-                        RemoveItemFromInventoryAction.class);
-                this.world.enqueueAction(removeItemFromInventoryAction);
-            }
-            case "addItemToInventory" -> {
-                AddItemToInventoryAction addItemToInventoryAction = gson.fromJson(message,
-                        AddItemToInventoryAction.class);
-                this.world.enqueueAction(addItemToInventoryAction);
-            }
-            case "forceNpcAttackPlayer" -> {
-                ForceNpcAttackPlayerAction forceNpcAttackPlayer = gson.fromJson(message,
-                        ForceNpcAttackPlayerAction.class);
-                this.world.enqueueAction(forceNpcAttackPlayer);
-            }
-            case "buyItem" -> {
-                BuyItemAction buyItemAction = gson.fromJson(message, BuyItemAction.class);
-                this.world.enqueueAction(buyItemAction);
-            }
+    private void registerHandlers() {
+        handlers.put("logOut", (conn, json) -> () -> {
+            this.world.queueLeave(conn);
+            conn.close();
+        });
+        handlers.put("ping", (conn, json) -> () -> conn.send("pong"));
+
+        handlers.put("playerMove", (conn, json) -> {
+            PlayerMove playerMoveAction = gson.fromJson(json, PlayerMove.class);
+            PlayerMove action = new PlayerMove(playerMoveAction.getPlayerID(),
+                    new PlayerMoveData(playerMoveAction.getX(), playerMoveAction.getY()));
+            return () -> enqueueAction(conn, action);
+        });
+        handlers.put("playerAttackMove", (conn, json) -> {
+            PlayerAttackMove playerAttackMoveAction = gson.fromJson(json, PlayerAttackMove.class);
+            PlayerAttackMove action = new PlayerAttackMove(playerAttackMoveAction.getPlayerID(),
+                    new PlayerAttackMoveData(playerAttackMoveAction.getEntityID()));
+            return () -> enqueueAction(conn, action);
+        });
+
+        handlers.put("chatMessage", (conn, json) -> {
+            ChatMessageAction chatMessage = gson.fromJson(json, ChatMessageAction.class);
+            ClientSession session = conn.getAttachment();
+            String senderName = session != null ? session.player.username : "";
+            ChatMessage chatMessageModel = new ChatMessage(senderName, chatMessage.getMessage(),
+                    chatMessage.getTimeSent(), chatMessage.isGlobal());
+            return () -> this.world.addChatMessage(chatMessageModel);
+        });
+
+        registerAction("changeAppearance", ChangeAppearanceAction.class);
+        registerAction("dropItem", DropItemAction.class);
+        registerAction("wieldItem", WieldItemAction.class);
+        registerAction("unwieldItem", UnwieldAction.class);
+        registerAction("playerTakeMove", PlayerTakeMoveAction.class);
+        registerAction("useItem", UseItemAction.class);
+        registerAction("eatItem", EatItemAction.class);
+        registerAction("questProgressUpdate", QuestProgressUpdateAction.class);
+        registerAction("playerTalkMove", PlayerTalkMoveAction.class);
+        registerAction("changeAttackStyle", ChangeAttackStyleAction.class);
+        registerAction("removeItemFromInventory", RemoveItemFromInventoryAction.class);
+        registerAction("addItemToInventory", AddItemToInventoryAction.class);
+        registerAction("forceNpcAttackPlayer", ForceNpcAttackPlayerAction.class);
+        registerAction("buyItem", BuyItemAction.class);
+        registerAction("sellItem", SellItemAction.class);
+        registerAction("tradeMove", TradeMoveAction.class);
+    }
 
-            case "sellItem" -> {
-                SellItemAction sellItemAction = gson.fromJson(message, SellItemAction.class);
-                this.world.enqueueAction(sellItemAction);
-            }
-            case "tradeMove" -> {
-                TradeMoveAction tradeMoveAction = gson.fromJson(message, TradeMoveAction.class);
-                this.world.enqueueAction(tradeMoveAction);
-            }
+    // Actions that go to the player's inbox as they were sent
+    private void registerAction(String action, Class<? extends Action> type) {
+        handlers.put(action, (conn, json) -> {
+            Action decoded = gson.fromJson(json, type);
+            return () -> enqueueAction(conn, decoded);
+        });
+    }
 
-            default -> {
-            }
+    private void enqueueAction(WebSocket conn, Action action) {
+        ClientSession session = conn.getAttachment();
+        if (session == null) {
+            return;
         }
 
+        Player player = session.player;
+        if (!player.actionInbox.offer(action)) {
+            Logger.printWarning("Action inbox full for " + player.username + ", dropping " + action.getAction());
+        }
     }
 
 }
@@ -0,0 +1,71 @@
+package com.g8e.gameserver.network.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.g8e.gameserver.network.actions.move.PlayerMove;
+
+/**
+ * Bounded multi-producer / single-consumer queue of actions for one player.
+ * WebSocket threads offer, the tick thread drains.
+ */
+public class ActionInbox {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private final ConcurrentLinkedQueue<Action> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    // Reused by the tick thread, never handed to other threads
+    private final List<Action> drained = new ArrayList<>();
+
+    public ActionInbox() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ActionInbox(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public boolean offer(Action action) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+
+        queue.offer(action);
+        return true;
+    }
+
+    /**
+     * Takes everything queued since the last drain. Only the latest PlayerMove
+     * is kept, earlier ones would be overwritten by it in the same tick anyway.
+     * The returned list is reused on the next call.
+     */
+    public List<Action> drain() {
+        drained.clear();
+        int lastMoveIndex = -1;
+
+        Action action;
+        while ((action = queue.poll()) != null) {
+            size.decrementAndGet();
+
+            if (action instanceof PlayerMove) {
+                if (lastMoveIndex != -1) {
+                    drained.remove(lastMoveIndex);
+                }
+                lastMoveIndex = drained.size();
+            }
+
+            drained.add(action);
+        }
+
+        return drained;
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
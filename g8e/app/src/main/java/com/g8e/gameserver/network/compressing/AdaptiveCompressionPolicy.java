@@ -0,0 +1,43 @@
+package com.g8e.gameserver.network.compressing;
+
+import java.util.zip.Deflater;
+
+/**
+ * Sends frames below the raw threshold as they are, the zlib header, block
+ * framing and checksum cost more than a few changed fields save. A stream
+ * frame only adds the sync flush marker and can refer back to earlier
+ * frames, so those are compressed at any size. Larger frames get the best
+ * compression while the tick has time left, and cheaper levels as the tick
+ * runs out of headroom or the payload gets large enough for the best level
+ * to take a noticeable share of the tick.
+ */
+public class AdaptiveCompressionPolicy implements CompressionPolicy {
+    private static final int BALANCED_LEVEL = 6;
+
+    private final int rawThreshold;
+    private final int largePayload;
+    private final double lowHeadroom;
+    private final double criticalHeadroom;
+
+    public AdaptiveCompressionPolicy(int rawThreshold, int largePayload, int lowHeadroomPercent,
+            int criticalHeadroomPercent) {
+        this.rawThreshold = rawThreshold;
+        this.largePayload = largePayload;
+        this.lowHeadroom = lowHeadroomPercent / 100.0;
+        this.criticalHeadroom = criticalHeadroomPercent / 100.0;
+    }
+
+    @Override
+    public int chooseLevel(int length, boolean stream, double headroom) {
+        if (length < rawThreshold && !stream) {
+            return RAW;
+        }
+        if (headroom < criticalHeadroom) {
+            return Deflater.BEST_SPEED;
+        }
+        if (headroom < lowHeadroom || length >= largePayload) {
+            return BALANCED_LEVEL;
+        }
+        return Deflater.BEST_COMPRESSION;
+    }
+}
@@ -9,14 +9,34 @@ import com.g8e.util.Logger;
 
 public class Compress {
     public static byte[] compress(String data) {
+        return compress(data.getBytes());
+    }
+
+    public static byte[] compress(byte[] data) {
+        return compress(data, null);
+    }
+
+    // The inflating side needs the same dictionary bytes
+    public static byte[] compress(byte[] data, byte[] dictionary) {
+        return compress(data, dictionary, Deflater.BEST_COMPRESSION);
+    }
+
+    public static byte[] compress(byte[] data, byte[] dictionary, int level) {
+        // DeflaterOutputStream does not end a deflater it was given
+        Deflater deflater = new Deflater(level);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                DeflaterOutputStream dos = new DeflaterOutputStream(baos, new Deflater(Deflater.BEST_COMPRESSION))) {
-            dos.write(data.getBytes());
+                DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater)) {
+            dos.write(data);
             dos.close();
             return baos.toByteArray();
         } catch (IOException e) {
             Logger.printError(e.getMessage());
             return null;
+        } finally {
+            deflater.end();
         }
     }
 }
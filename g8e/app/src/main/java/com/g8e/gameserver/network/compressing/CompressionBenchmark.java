@@ -0,0 +1,95 @@
+package com.g8e.gameserver.network.compressing;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Function;
+
+import com.g8e.gameserver.util.GameConstants;
+import com.g8e.util.Logger;
+
+/**
+ * Compares per-message compression with and without the preset dictionary,
+ * and the per-connection stream, on recorded JSON states. Reports the
+ * compression ratio and CPU time per message. Without a dictionary file and
+ * without a shipped dictionary, one is built from the first half of the
+ * samples and measured on the second half.
+ *
+ * Run with "benchmark-compression <sample dir> [dictionary file]".
+ */
+public class CompressionBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void run(String[] args) {
+        if (args.length < 2) {
+            Logger.printError("Usage: benchmark-compression <sample dir> [dictionary file]");
+            return;
+        }
+
+        try {
+            List<byte[]> samples = DictionaryBuilder.readSamples(Paths.get(args[1]));
+            if (samples.size() < 2) {
+                Logger.printError("Need at least two samples in " + args[1]);
+                return;
+            }
+
+            byte[] dictionary;
+            if (args.length > 2) {
+                dictionary = Files.readAllBytes(Paths.get(args[2]));
+            } else if (CompressionDictionary.SHIPPED != null) {
+                dictionary = CompressionDictionary.SHIPPED.bytes;
+            } else {
+                int half = samples.size() / 2;
+                dictionary = DictionaryBuilder.build(samples.subList(0, half), 16 * 1024);
+                samples = samples.subList(half, samples.size());
+            }
+
+            byte[] finalDictionary = dictionary;
+            long original = 0;
+            for (byte[] sample : samples) {
+                original += sample.length;
+            }
+
+            StringBuilder report = new StringBuilder();
+            report.append(samples.size()).append(" samples, ").append(original / samples.size())
+                    .append(" bytes on average, dictionary ").append(dictionary.length).append(" bytes\n");
+            report.append(measure("per message", samples, original, Compress::compress));
+            report.append(measure("dictionary ", samples, original,
+                    data -> Compress.compress(data, finalDictionary)));
+            report.append(measure("stream     ", samples, original, null));
+            Logger.printInfo(report.toString());
+        } catch (IOException e) {
+            Logger.printError("Failed to read samples: " + e.getMessage());
+        }
+    }
+
+    // A null compressor measures one stream over all samples, like a connection
+    private static String measure(String name, List<byte[]> samples, long original,
+            Function<byte[], byte[]> compressor) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long compressed = 0;
+        long cpuNanos = 0;
+
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            StreamCompressor stream = compressor == null
+                    ? new StreamCompressor(GameConstants.STREAM_COMPRESSION_LEVEL)
+                    : null;
+            compressed = 0;
+            long start = threads.getCurrentThreadCpuTime();
+            for (byte[] sample : samples) {
+                byte[] data = stream != null ? stream.compress(sample) : compressor.apply(sample);
+                compressed += data.length;
+            }
+            cpuNanos = threads.getCurrentThreadCpuTime() - start;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+        return String.format("  %s: %d bytes on average, ratio %.2f, %d us CPU per message%n", name,
+                compressed / samples.size(), (double) original / compressed, cpuNanos / samples.size() / 1000);
+    }
+}
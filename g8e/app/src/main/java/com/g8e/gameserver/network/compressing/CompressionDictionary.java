@@ -0,0 +1,50 @@
+package com.g8e.gameserver.network.compressing;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.g8e.updateserver.util.UpdateConstants;
+import com.g8e.util.Logger;
+
+/**
+ * Preset dictionary for game state messages. It ships with the asset cache,
+ * so a client that has cache version CACHE_VERSION has the same bytes. Built
+ * from recorded states with the "build-compression-dictionary" argument.
+ */
+public class CompressionDictionary {
+    public static final String RESOURCE = "/data/compression/state.dict";
+    // Null when no dictionary has been built yet
+    public static final CompressionDictionary SHIPPED = load();
+
+    public final byte[] bytes;
+    public final int version;
+
+    public CompressionDictionary(byte[] bytes, int version) {
+        this.bytes = bytes;
+        this.version = version;
+    }
+
+    // The client sends the cache version it took the dictionary from
+    public static boolean accepts(String version) {
+        if (SHIPPED == null || version == null) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(version) == SHIPPED.version;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static CompressionDictionary load() {
+        try (InputStream in = CompressionDictionary.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                return null;
+            }
+            return new CompressionDictionary(in.readAllBytes(), UpdateConstants.CACHE_VERSION);
+        } catch (IOException e) {
+            Logger.printError("Failed to load compression dictionary: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.g8e.gameserver.network.compressing;
+
+public enum CompressionMode {
+    // Every message is a complete zlib stream of its own
+    PER_MESSAGE,
+    // One zlib stream per connection, every message ends with a sync flush
+    STREAM,
+    // Every message is a complete zlib stream primed with the preset dictionary
+    DICTIONARY;
+
+    // Negotiated with the "compression" query parameter when connecting. The
+    // dictionary is only used when the client has the version the server has,
+    // otherwise it falls back to plain messages which it can inflate as well.
+    public static CompressionMode fromQueryParam(String value, String dictionaryVersion) {
+        if (value != null && value.equalsIgnoreCase("stream")) {
+            return STREAM;
+        }
+        if (value != null && value.equalsIgnoreCase("dictionary")
+                && CompressionDictionary.accepts(dictionaryVersion)) {
+            return DICTIONARY;
+        }
+        return PER_MESSAGE;
+    }
+}
@@ -0,0 +1,12 @@
+package com.g8e.gameserver.network.compressing;
+
+public interface CompressionPolicy {
+    // Level for frames that are sent as they are
+    int RAW = -1;
+
+    // Deflate level for a payload of the given length, or RAW. Stream frames
+    // go through a connection's long-lived deflater. Headroom is the share of
+    // the tick period still left, from 1 at the start of a tick down to 0
+    // when the tick is about to overrun.
+    int chooseLevel(int length, boolean stream, double headroom);
+}
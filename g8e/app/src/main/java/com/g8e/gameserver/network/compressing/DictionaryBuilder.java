@@ -0,0 +1,174 @@
+package com.g8e.gameserver.network.compressing;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.g8e.util.Logger;
+
+/**
+ * Builds the preset dictionary from recorded JSON states. The corpus is split
+ * into epochs and from each epoch the segment whose 8 byte substrings occur in
+ * the most samples is taken. Substrings already in the dictionary stop
+ * counting, so later segments cover what earlier ones did not. The most
+ * valuable segments go last, deflate reaches the end of the dictionary with
+ * the shortest distances.
+ *
+ * Run with "build-compression-dictionary <sample dir> [output file]".
+ */
+public class DictionaryBuilder {
+    private static final String DEFAULT_OUTPUT = "src/main/resources" + CompressionDictionary.RESOURCE;
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+    private static final int SEGMENT_SIZE = 64;
+    private static final int K = 8;
+
+    public static void run(String[] args) {
+        if (args.length < 2) {
+            Logger.printError("Usage: build-compression-dictionary <sample dir> [output file]");
+            return;
+        }
+
+        try {
+            List<byte[]> samples = readSamples(Paths.get(args[1]));
+            if (samples.isEmpty()) {
+                Logger.printError("No samples found in " + args[1]);
+                return;
+            }
+
+            byte[] dictionary = build(samples, DICTIONARY_SIZE);
+            Path output = Paths.get(args.length > 2 ? args[2] : DEFAULT_OUTPUT);
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            Files.write(output, dictionary);
+            Logger.printInfo("Wrote " + dictionary.length + " byte dictionary from " + samples.size()
+                    + " samples to " + output.toAbsolutePath()
+                    + ", bump CACHE_VERSION so clients download it");
+        } catch (IOException e) {
+            Logger.printError("Failed to build compression dictionary: " + e.getMessage());
+        }
+    }
+
+    public static List<byte[]> readSamples(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+
+        List<byte[]> samples = new ArrayList<>();
+        for (Path file : files) {
+            samples.add(Files.readAllBytes(file));
+        }
+        return samples;
+    }
+
+    public static byte[] build(List<byte[]> samples, int size) {
+        // How many samples every substring occurs in
+        Map<Long, Integer> frequencies = new HashMap<>();
+        int corpusLength = 0;
+        for (byte[] sample : samples) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + K <= sample.length; i++) {
+                seen.add(key(sample, i));
+            }
+            for (Long key : seen) {
+                frequencies.merge(key, 1, Integer::sum);
+            }
+            corpusLength += sample.length;
+        }
+
+        byte[] corpus = new byte[corpusLength];
+        int offset = 0;
+        for (byte[] sample : samples) {
+            System.arraycopy(sample, 0, corpus, offset, sample.length);
+            offset += sample.length;
+        }
+
+        int epochs = Math.max(1, size / SEGMENT_SIZE);
+        int epochLength = Math.max(SEGMENT_SIZE, corpusLength / epochs);
+        List<Segment> segments = new ArrayList<>();
+        int total = 0;
+
+        for (int start = 0; start + SEGMENT_SIZE <= corpusLength && total < size; start += epochLength) {
+            int end = Math.min(corpusLength, start + epochLength);
+            int best = bestSegment(corpus, start, end, frequencies);
+            if (best < 0) {
+                continue;
+            }
+
+            Segment segment = new Segment(new byte[Math.min(SEGMENT_SIZE, size - total)]);
+            System.arraycopy(corpus, best, segment.bytes, 0, segment.bytes.length);
+            for (int i = best; i + K <= best + SEGMENT_SIZE; i++) {
+                Integer frequency = frequencies.remove(key(corpus, i));
+                if (frequency != null) {
+                    segment.score += frequency;
+                }
+            }
+            segments.add(segment);
+            total += segment.bytes.length;
+        }
+
+        // Segments are picked in corpus order, sort them so the best end up last
+        segments.sort((a, b) -> Long.compare(a.score, b.score));
+        byte[] dictionary = new byte[total];
+        offset = 0;
+        for (Segment segment : segments) {
+            System.arraycopy(segment.bytes, 0, dictionary, offset, segment.bytes.length);
+            offset += segment.bytes.length;
+        }
+        return dictionary;
+    }
+
+    // Start of the best scoring segment in [start, end), -1 when nothing scores
+    private static int bestSegment(byte[] corpus, int start, int end, Map<Long, Integer> frequencies) {
+        int kmers = SEGMENT_SIZE - K + 1;
+        if (end - start < SEGMENT_SIZE) {
+            return -1;
+        }
+
+        long score = 0;
+        for (int i = start; i < start + kmers; i++) {
+            score += frequencies.getOrDefault(key(corpus, i), 0);
+        }
+
+        long bestScore = score;
+        int best = start;
+        for (int i = start + 1; i + SEGMENT_SIZE <= end; i++) {
+            score -= frequencies.getOrDefault(key(corpus, i - 1), 0);
+            score += frequencies.getOrDefault(key(corpus, i + kmers - 1), 0);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return bestScore > 0 ? best : -1;
+    }
+
+    private static class Segment {
+        final byte[] bytes;
+        long score = 0;
+
+        Segment(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static long key(byte[] data, int offset) {
+        long key = 0;
+        for (int i = 0; i < K; i++) {
+            key = (key << 8) | (data[offset + i] & 0xFF);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,15 @@
+package com.g8e.gameserver.network.compressing;
+
+// Compresses every frame at the same level
+public class FixedCompressionPolicy implements CompressionPolicy {
+    private final int level;
+
+    public FixedCompressionPolicy(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public int chooseLevel(int length, boolean stream, double headroom) {
+        return level;
+    }
+}
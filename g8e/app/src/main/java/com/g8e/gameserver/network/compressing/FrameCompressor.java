@@ -0,0 +1,104 @@
+package com.g8e.gameserver.network.compressing;
+
+import java.util.function.DoubleSupplier;
+
+import com.g8e.gameserver.util.Metrics;
+
+/**
+ * Compresses outgoing frames at the level the policy picks. Every frame
+ * starts with a marker byte telling the client whether the rest is deflated.
+ * Bytes saved and time spent are counted per level, so the policy can be
+ * judged on what each level costs.
+ */
+public class FrameCompressor {
+    public static final byte RAW_FRAME = 0;
+    public static final byte DEFLATE_FRAME = 1;
+
+    private static final int LEVELS = 10;
+
+    private final CompressionPolicy policy;
+    private final DoubleSupplier headroom;
+
+    private final String[] bytesInNames = new String[LEVELS];
+    private final String[] bytesSavedNames = new String[LEVELS];
+    private final String[] nanosNames = new String[LEVELS];
+    private final String[] framesNames = new String[LEVELS];
+
+    public FrameCompressor(CompressionPolicy policy, DoubleSupplier headroom) {
+        this.policy = policy;
+        this.headroom = headroom;
+        for (int level = 0; level < LEVELS; level++) {
+            String prefix = "compression.level" + level;
+            bytesInNames[level] = prefix + ".bytesIn";
+            bytesSavedNames[level] = prefix + ".bytesSaved";
+            nanosNames[level] = prefix + ".nanos";
+            framesNames[level] = prefix + ".frames";
+        }
+    }
+
+    // Per-message frame, the dictionary may be null
+    public byte[] compress(byte[] data, byte[] dictionary) {
+        int level = chooseLevel(data.length, false);
+        if (level == CompressionPolicy.RAW) {
+            return raw(data);
+        }
+
+        long start = System.nanoTime();
+        byte[] compressed = Compress.compress(data, dictionary, level);
+        return deflated(data, compressed, level, System.nanoTime() - start);
+    }
+
+    // Raw frames leave the stream untouched, the client skips them too
+    public byte[] compress(byte[] data, StreamCompressor stream) {
+        int level = chooseLevel(data.length, true);
+        if (level == CompressionPolicy.RAW) {
+            return raw(data);
+        }
+
+        long start = System.nanoTime();
+        byte[] compressed = stream.compress(data, level);
+        return deflated(data, compressed, level, System.nanoTime() - start);
+    }
+
+    // Saved bytes per millisecond spent, for every level used so far
+    public void publish() {
+        for (int level = 0; level < LEVELS; level++) {
+            long nanos = Metrics.getCounter(nanosNames[level]);
+            if (nanos > 0) {
+                Metrics.setGauge("compression.level" + level + ".bytesSavedPerMs",
+                        Metrics.getCounter(bytesSavedNames[level]) * 1_000_000 / nanos);
+            }
+        }
+    }
+
+    private int chooseLevel(int length, boolean stream) {
+        double remaining = Math.max(0, Math.min(1, headroom.getAsDouble()));
+        int level = policy.chooseLevel(length, stream, remaining);
+        return level == CompressionPolicy.RAW ? level : Math.max(0, Math.min(LEVELS - 1, level));
+    }
+
+    private byte[] raw(byte[] data) {
+        Metrics.increment("compression.raw.frames");
+        Metrics.add("compression.raw.bytes", data.length);
+        return frame(RAW_FRAME, data);
+    }
+
+    private byte[] deflated(byte[] data, byte[] compressed, int level, long nanos) {
+        if (compressed == null) {
+            return null;
+        }
+
+        Metrics.increment(framesNames[level]);
+        Metrics.add(bytesInNames[level], data.length);
+        Metrics.add(bytesSavedNames[level], data.length - compressed.length);
+        Metrics.add(nanosNames[level], nanos);
+        return frame(DEFLATE_FRAME, compressed);
+    }
+
+    private static byte[] frame(byte marker, byte[] body) {
+        byte[] frame = new byte[body.length + 1];
+        frame[0] = marker;
+        System.arraycopy(body, 0, frame, 1, body.length);
+        return frame;
+    }
+}
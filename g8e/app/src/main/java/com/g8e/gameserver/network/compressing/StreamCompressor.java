@@ -0,0 +1,61 @@
+package com.g8e.gameserver.network.compressing;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Long-lived deflater of one connection. Messages are sync flushed so each
+ * one can be inflated as soon as it arrives, while the window keeps the keys
+ * and IDs of earlier ticks to refer back to.
+ */
+public class StreamCompressor {
+    private final Deflater deflater;
+    private byte[] buffer = new byte[8192];
+    private boolean closed = false;
+    private int level;
+
+    public StreamCompressor(int level) {
+        this.deflater = new Deflater(level);
+        this.level = level;
+    }
+
+    // Null once the connection has closed
+    public synchronized byte[] compress(byte[] data) {
+        return compress(data, level);
+    }
+
+    // The level can change between messages
+    public synchronized byte[] compress(byte[] data, int level) {
+        if (closed) {
+            return null;
+        }
+
+        int length = 0;
+        if (level != this.level) {
+            // Applied by a call without input, so the data below is not
+            // flushed early with the previous level
+            deflater.setLevel(level);
+            this.level = level;
+            length = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+        }
+
+        deflater.setInput(data);
+        while (true) {
+            length += deflater.deflate(buffer, length, buffer.length - length, Deflater.SYNC_FLUSH);
+            // A full buffer may mean more output is pending
+            if (length < buffer.length) {
+                break;
+            }
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    // Frees the native zlib memory right away instead of at garbage collection
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            deflater.end();
+        }
+    }
+}
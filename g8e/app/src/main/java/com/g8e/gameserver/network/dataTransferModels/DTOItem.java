@@ -11,8 +11,11 @@ public class DTOItem {
 
     private Boolean isDeleted;
 
+    private transient int handle;
+
     public DTOItem(Item item) {
         this.uniqueID = item.getUniqueID();
+        this.handle = item.handle;
 
         if (item.itemIDChanged == 1) {
             this.itemID = item.getItemID();
@@ -37,10 +40,23 @@ public class DTOItem {
 
     public DTOItem(Item item, boolean includeEverything) {
         this.uniqueID = item.getUniqueID();
+        this.handle = item.handle;
         this.itemID = item.getItemID();
         this.amount = item.getAmount();
-        this.worldX = item.worldXChanged;
-        this.worldY = item.worldYChanged;
+        this.worldX = item.worldX;
+        this.worldY = item.worldY;
+    }
+
+    private DTOItem(String uniqueID, int handle) {
+        this.uniqueID = uniqueID;
+        this.handle = handle;
+    }
+
+    // Tells the client to forget an item that is no longer in its area
+    public static DTOItem outOfRange(Item item) {
+        DTOItem dto = new DTOItem(item.getUniqueID(), item.handle);
+        dto.isDeleted = true;
+        return dto;
     }
 
     public boolean hasOnlyUniqueId() {
@@ -52,4 +68,32 @@ public class DTOItem {
                 && isDeleted == null;
     }
 
+    public String getUniqueID() {
+        return uniqueID;
+    }
+
+    public Integer getItemID() {
+        return itemID;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public Integer getWorldX() {
+        return worldX;
+    }
+
+    public Integer getWorldY() {
+        return worldY;
+    }
+
+    public Boolean getIsDeleted() {
+        return isDeleted;
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
 }
@@ -22,8 +22,11 @@ public class DTONpc {
     public Direction facingDirection;
     public Boolean isDying;
 
+    public transient int handle;
+
     public DTONpc(Npc npc) {
         this.entityID = npc.entityID;
+        this.handle = npc.handle;
 
         if (npc.npcIndexChanged == 1) {
             this.npcIndex = npc.npcIndex;
@@ -66,6 +69,7 @@ public class DTONpc {
 
     public DTONpc(Npc npc, boolean includeEverything) {
         this.entityID = npc.entityID;
+        this.handle = npc.handle;
         this.npcIndex = npc.npcIndex;
         this.currentHitpoints = npc.currentHitpoints;
         this.isInCombat = npc.isInCombat;
@@ -1,11 +1,9 @@
 package com.g8e.gameserver.network.dataTransferModels;
 
 import java.util.Arrays;
-import java.util.List;
 
 import com.g8e.gameserver.enums.Direction;
 import com.g8e.gameserver.models.entities.Player;
-import com.g8e.gameserver.pathfinding.PathNode;
 
 public class DTOPlayer {
     // Player fields
@@ -35,11 +33,13 @@ public class DTOPlayer {
     public Integer lastTickX;
     public Integer lastTickY;
     public Direction facingDirection;
-    public List<PathNode> currentPath;
     public Boolean isDying;
 
+    public transient int handle;
+
     public DTOPlayer(Player player) {
         this.entityID = player.entityID;
+        this.handle = player.handle;
 
         if (player.inventoryChanged == 1) {
             this.inventory = Arrays.copyOf(player.inventory, player.inventory.length);
@@ -113,6 +113,7 @@ public class DTOPlayer {
 
     public DTOPlayer(Player player, boolean includeEverything) {
         this.entityID = player.entityID;
+        this.handle = player.handle;
         this.inventory = Arrays.copyOf(player.inventory, player.inventory.length);
         this.inventoryAmounts = Arrays.copyOf(player.inventoryAmounts, player.inventoryAmounts.length);
         this.questProgress = Arrays.copyOf(player.questProgress, player.questProgress.length);
@@ -157,7 +158,6 @@ public class DTOPlayer {
                 && worldX == null
                 && worldY == null
                 && facingDirection == null
-                && currentPath == null
                 && isDying == null
                 && lastTickX == null
                 && lastTickY == null;
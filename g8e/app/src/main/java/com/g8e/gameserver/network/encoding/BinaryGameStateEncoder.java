@@ -0,0 +1,358 @@
+package com.g8e.gameserver.network.encoding;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import com.g8e.gameserver.models.ChatMessage;
+import com.g8e.gameserver.models.events.AttackEvent;
+import com.g8e.gameserver.models.events.SoundEvent;
+import com.g8e.gameserver.models.events.TalkEvent;
+import com.g8e.gameserver.models.events.TradeEvent;
+import com.g8e.gameserver.network.GameState;
+import com.g8e.gameserver.network.dataTransferModels.DTOItem;
+import com.g8e.gameserver.network.dataTransferModels.DTONpc;
+import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+
+/**
+ * Binary alternative to the JSON game state, for clients that connect with
+ * protocol=binary.
+ *
+ * A frame starts with the version byte and a varint with one bit per section
+ * (SECTION_* constants). Present sections follow in bit order, each starting
+ * with a varint count. Entities and items are written as a varint handle and
+ * a varint mask of the fields that follow, in mask bit order. The string ID
+ * is only included when the entity is introduced (npcIndex, username or
+ * itemID present), afterwards the client resolves it from the handle. Events
+ * and lists of IDs use handles, 0 means unknown.
+ *
+ * Ints are zigzag varints, coordinates unsigned varints, booleans one byte,
+ * directions their ordinal and strings a varint length followed by UTF-8.
+ */
+public class BinaryGameStateEncoder {
+    public static final int VERSION = 1;
+
+    public static final int SECTION_ATTACK_EVENTS = 1;
+    public static final int SECTION_TALK_EVENTS = 1 << 1;
+    public static final int SECTION_TRADE_EVENTS = 1 << 2;
+    public static final int SECTION_SOUND_EVENTS = 1 << 3;
+    public static final int SECTION_PLAYERS = 1 << 4;
+    public static final int SECTION_NPCS = 1 << 5;
+    public static final int SECTION_CHAT_MESSAGES = 1 << 6;
+    public static final int SECTION_PLAYER_ID = 1 << 7;
+    public static final int SECTION_ITEMS = 1 << 8;
+    public static final int SECTION_OUT_OF_RANGE_NPCS = 1 << 9;
+    public static final int SECTION_ONLINE_PLAYERS = 1 << 10;
+
+    public static final int PLAYER_ENTITY_ID = 1;
+    public static final int PLAYER_INVENTORY = 1 << 1;
+    public static final int PLAYER_INVENTORY_AMOUNTS = 1 << 2;
+    public static final int PLAYER_QUEST_PROGRESS = 1 << 3;
+    public static final int PLAYER_INFLUENCE = 1 << 4;
+    public static final int PLAYER_SKIN_COLOR = 1 << 5;
+    public static final int PLAYER_HAIR_COLOR = 1 << 6;
+    public static final int PLAYER_SHIRT_COLOR = 1 << 7;
+    public static final int PLAYER_PANTS_COLOR = 1 << 8;
+    public static final int PLAYER_USERNAME = 1 << 9;
+    public static final int PLAYER_SKILLS = 1 << 10;
+    public static final int PLAYER_CURRENT_HITPOINTS = 1 << 11;
+    public static final int PLAYER_IS_IN_COMBAT = 1 << 12;
+    public static final int PLAYER_WEAPON = 1 << 13;
+    public static final int PLAYER_SHIELD = 1 << 14;
+    public static final int PLAYER_ATTACK_STYLE = 1 << 15;
+    public static final int PLAYER_LAST_DAMAGE_DEALT = 1 << 16;
+    public static final int PLAYER_WORLD_X = 1 << 17;
+    public static final int PLAYER_WORLD_Y = 1 << 18;
+    public static final int PLAYER_LAST_TICK_X = 1 << 19;
+    public static final int PLAYER_LAST_TICK_Y = 1 << 20;
+    public static final int PLAYER_FACING_DIRECTION = 1 << 21;
+    public static final int PLAYER_IS_DYING = 1 << 22;
+
+    public static final int NPC_ENTITY_ID = 1;
+    public static final int NPC_NPC_INDEX = 1 << 1;
+    public static final int NPC_CURRENT_HITPOINTS = 1 << 2;
+    public static final int NPC_IS_IN_COMBAT = 1 << 3;
+    public static final int NPC_LAST_DAMAGE_DEALT = 1 << 4;
+    public static final int NPC_WORLD_X = 1 << 5;
+    public static final int NPC_WORLD_Y = 1 << 6;
+    public static final int NPC_LAST_TICK_X = 1 << 7;
+    public static final int NPC_LAST_TICK_Y = 1 << 8;
+    public static final int NPC_NEXT_TILE_DIRECTION = 1 << 9;
+    public static final int NPC_FACING_DIRECTION = 1 << 10;
+    public static final int NPC_IS_DYING = 1 << 11;
+
+    public static final int ITEM_UNIQUE_ID = 1;
+    public static final int ITEM_ITEM_ID = 1 << 1;
+    public static final int ITEM_AMOUNT = 1 << 2;
+    public static final int ITEM_WORLD_X = 1 << 3;
+    public static final int ITEM_WORLD_Y = 1 << 4;
+    public static final int ITEM_IS_DELETED = 1 << 5;
+
+    private final ToIntFunction<String> entityHandles;
+    private final BinaryWriter writer = new BinaryWriter(4096);
+
+    public BinaryGameStateEncoder(ToIntFunction<String> entityHandles) {
+        this.entityHandles = entityHandles;
+    }
+
+    public byte[] encode(GameState gameState) {
+        writer.reset();
+        writer.writeByte(VERSION);
+
+        int sections = 0;
+        sections |= present(gameState.getTickAttackEvents(), SECTION_ATTACK_EVENTS);
+        sections |= present(gameState.getTickTalkEvents(), SECTION_TALK_EVENTS);
+        sections |= present(gameState.getTickTradeEvents(), SECTION_TRADE_EVENTS);
+        sections |= present(gameState.getTickSoundEvents(), SECTION_SOUND_EVENTS);
+        sections |= present(gameState.getPlayers(), SECTION_PLAYERS);
+        sections |= present(gameState.getNpcs(), SECTION_NPCS);
+        sections |= present(gameState.getChatMessages(), SECTION_CHAT_MESSAGES);
+        sections |= gameState.getPlayerID() != null ? SECTION_PLAYER_ID : 0;
+        sections |= present(gameState.getItems(), SECTION_ITEMS);
+        sections |= present(gameState.getOutOfRangeNpcs(), SECTION_OUT_OF_RANGE_NPCS);
+        sections |= present(gameState.getOnlinePlayers(), SECTION_ONLINE_PLAYERS);
+        writer.writeVarInt(sections);
+
+        if ((sections & SECTION_ATTACK_EVENTS) != 0) {
+            writer.writeVarInt(gameState.getTickAttackEvents().size());
+            for (AttackEvent event : gameState.getTickAttackEvents()) {
+                writeHandle(event.attackerID);
+                writeHandle(event.targetID);
+            }
+        }
+
+        if ((sections & SECTION_TALK_EVENTS) != 0) {
+            writer.writeVarInt(gameState.getTickTalkEvents().size());
+            for (TalkEvent event : gameState.getTickTalkEvents()) {
+                writeHandle(event.talkerID);
+                writeHandle(event.targetID);
+                writer.writeVarInt(event.targetIndex);
+            }
+        }
+
+        if ((sections & SECTION_TRADE_EVENTS) != 0) {
+            writer.writeVarInt(gameState.getTickTradeEvents().size());
+            for (TradeEvent event : gameState.getTickTradeEvents()) {
+                writeHandle(event.traderID);
+                writeHandle(event.targetID);
+                writer.writeVarInt(event.targetIndex);
+            }
+        }
+
+        if ((sections & SECTION_SOUND_EVENTS) != 0) {
+            writer.writeVarInt(gameState.getTickSoundEvents().size());
+            for (SoundEvent event : gameState.getTickSoundEvents()) {
+                writer.writeString(event.soundName);
+                writer.writeByte((event.isSfx ? 1 : 0) | (event.shouldInterrupt ? 2 : 0) | (event.isGlobal ? 4 : 0));
+                writeHandle(event.entityID);
+            }
+        }
+
+        if ((sections & SECTION_PLAYERS) != 0) {
+            writer.writeVarInt(gameState.getPlayers().size());
+            for (DTOPlayer player : gameState.getPlayers()) {
+                writePlayer(player);
+            }
+        }
+
+        if ((sections & SECTION_NPCS) != 0) {
+            writer.writeVarInt(gameState.getNpcs().size());
+            for (DTONpc npc : gameState.getNpcs()) {
+                writeNpc(npc);
+            }
+        }
+
+        if ((sections & SECTION_CHAT_MESSAGES) != 0) {
+            writer.writeVarInt(gameState.getChatMessages().size());
+            for (ChatMessage chatMessage : gameState.getChatMessages()) {
+                writer.writeString(chatMessage.getSenderName());
+                writer.writeString(chatMessage.getMessage());
+                writer.writeVarLong(chatMessage.getTimeSent());
+                writer.writeBoolean(chatMessage.isGlobal());
+            }
+        }
+
+        if ((sections & SECTION_PLAYER_ID) != 0) {
+            writer.writeString(gameState.getPlayerID());
+            writeHandle(gameState.getPlayerID());
+        }
+
+        if ((sections & SECTION_ITEMS) != 0) {
+            writer.writeVarInt(gameState.getItems().size());
+            for (DTOItem item : gameState.getItems()) {
+                writeItem(item);
+            }
+        }
+
+        if ((sections & SECTION_OUT_OF_RANGE_NPCS) != 0) {
+            writeHandles(gameState.getOutOfRangeNpcs());
+        }
+
+        if ((sections & SECTION_ONLINE_PLAYERS) != 0) {
+            writeHandles(gameState.getOnlinePlayers());
+        }
+
+        return writer.toByteArray();
+    }
+
+    private void writePlayer(DTOPlayer player) {
+        int mask = 0;
+        mask |= player.username != null ? PLAYER_ENTITY_ID : 0;
+        mask |= player.inventory != null ? PLAYER_INVENTORY : 0;
+        mask |= player.inventoryAmounts != null ? PLAYER_INVENTORY_AMOUNTS : 0;
+        mask |= player.questProgress != null ? PLAYER_QUEST_PROGRESS : 0;
+        mask |= player.influence != null ? PLAYER_INFLUENCE : 0;
+        mask |= player.skinColor != null ? PLAYER_SKIN_COLOR : 0;
+        mask |= player.hairColor != null ? PLAYER_HAIR_COLOR : 0;
+        mask |= player.shirtColor != null ? PLAYER_SHIRT_COLOR : 0;
+        mask |= player.pantsColor != null ? PLAYER_PANTS_COLOR : 0;
+        mask |= player.username != null ? PLAYER_USERNAME : 0;
+        mask |= player.skills != null ? PLAYER_SKILLS : 0;
+        mask |= player.currentHitpoints != null ? PLAYER_CURRENT_HITPOINTS : 0;
+        mask |= player.isInCombat != null ? PLAYER_IS_IN_COMBAT : 0;
+        mask |= player.weapon != null ? PLAYER_WEAPON : 0;
+        mask |= player.shield != null ? PLAYER_SHIELD : 0;
+        mask |= player.attackStyle != null ? PLAYER_ATTACK_STYLE : 0;
+        mask |= player.lastDamageDealt != null ? PLAYER_LAST_DAMAGE_DEALT : 0;
+        mask |= player.worldX != null ? PLAYER_WORLD_X : 0;
+        mask |= player.worldY != null ? PLAYER_WORLD_Y : 0;
+        mask |= player.lastTickX != null ? PLAYER_LAST_TICK_X : 0;
+        mask |= player.lastTickY != null ? PLAYER_LAST_TICK_Y : 0;
+        mask |= player.facingDirection != null ? PLAYER_FACING_DIRECTION : 0;
+        mask |= player.isDying != null ? PLAYER_IS_DYING : 0;
+
+        writer.writeVarInt(player.handle);
+        writer.writeVarInt(mask);
+
+        if ((mask & PLAYER_ENTITY_ID) != 0)
+            writer.writeString(player.entityID);
+        if ((mask & PLAYER_INVENTORY) != 0)
+            writer.writeIntArray(player.inventory);
+        if ((mask & PLAYER_INVENTORY_AMOUNTS) != 0)
+            writer.writeIntArray(player.inventoryAmounts);
+        if ((mask & PLAYER_QUEST_PROGRESS) != 0)
+            writer.writeIntArray(player.questProgress);
+        if ((mask & PLAYER_INFLUENCE) != 0)
+            writer.writeSignedVarInt(player.influence);
+        if ((mask & PLAYER_SKIN_COLOR) != 0)
+            writer.writeSignedVarInt(player.skinColor);
+        if ((mask & PLAYER_HAIR_COLOR) != 0)
+            writer.writeSignedVarInt(player.hairColor);
+        if ((mask & PLAYER_SHIRT_COLOR) != 0)
+            writer.writeSignedVarInt(player.shirtColor);
+        if ((mask & PLAYER_PANTS_COLOR) != 0)
+            writer.writeSignedVarInt(player.pantsColor);
+        if ((mask & PLAYER_USERNAME) != 0)
+            writer.writeString(player.username);
+        if ((mask & PLAYER_SKILLS) != 0)
+            writer.writeIntArray(player.skills);
+        if ((mask & PLAYER_CURRENT_HITPOINTS) != 0)
+            writer.writeSignedVarInt(player.currentHitpoints);
+        if ((mask & PLAYER_IS_IN_COMBAT) != 0)
+            writer.writeBoolean(player.isInCombat);
+        if ((mask & PLAYER_WEAPON) != 0)
+            writer.writeSignedVarInt(player.weapon);
+        if ((mask & PLAYER_SHIELD) != 0)
+            writer.writeSignedVarInt(player.shield);
+        if ((mask & PLAYER_ATTACK_STYLE) != 0)
+            writer.writeString(player.attackStyle);
+        if ((mask & PLAYER_LAST_DAMAGE_DEALT) != 0)
+            writer.writeSignedVarInt(player.lastDamageDealt);
+        if ((mask & PLAYER_WORLD_X) != 0)
+            writer.writeVarInt(player.worldX);
+        if ((mask & PLAYER_WORLD_Y) != 0)
+            writer.writeVarInt(player.worldY);
+        if ((mask & PLAYER_LAST_TICK_X) != 0)
+            writer.writeVarInt(player.lastTickX);
+        if ((mask & PLAYER_LAST_TICK_Y) != 0)
+            writer.writeVarInt(player.lastTickY);
+        if ((mask & PLAYER_FACING_DIRECTION) != 0)
+            writer.writeByte(player.facingDirection.ordinal());
+        if ((mask & PLAYER_IS_DYING) != 0)
+            writer.writeBoolean(player.isDying);
+    }
+
+    private void writeNpc(DTONpc npc) {
+        int mask = 0;
+        mask |= npc.npcIndex != null ? NPC_ENTITY_ID : 0;
+        mask |= npc.npcIndex != null ? NPC_NPC_INDEX : 0;
+        mask |= npc.currentHitpoints != null ? NPC_CURRENT_HITPOINTS : 0;
+        mask |= npc.isInCombat != null ? NPC_IS_IN_COMBAT : 0;
+        mask |= npc.lastDamageDealt != null ? NPC_LAST_DAMAGE_DEALT : 0;
+        mask |= npc.worldX != null ? NPC_WORLD_X : 0;
+        mask |= npc.worldY != null ? NPC_WORLD_Y : 0;
+        mask |= npc.lastTickX != null ? NPC_LAST_TICK_X : 0;
+        mask |= npc.lastTickY != null ? NPC_LAST_TICK_Y : 0;
+        mask |= npc.nextTileDirection != null ? NPC_NEXT_TILE_DIRECTION : 0;
+        mask |= npc.facingDirection != null ? NPC_FACING_DIRECTION : 0;
+        mask |= npc.isDying != null ? NPC_IS_DYING : 0;
+
+        writer.writeVarInt(npc.handle);
+        writer.writeVarInt(mask);
+
+        if ((mask & NPC_ENTITY_ID) != 0)
+            writer.writeString(npc.entityID);
+        if ((mask & NPC_NPC_INDEX) != 0)
+            writer.writeVarInt(npc.npcIndex);
+        if ((mask & NPC_CURRENT_HITPOINTS) != 0)
+            writer.writeSignedVarInt(npc.currentHitpoints);
+        if ((mask & NPC_IS_IN_COMBAT) != 0)
+            writer.writeBoolean(npc.isInCombat);
+        if ((mask & NPC_LAST_DAMAGE_DEALT) != 0)
+            writer.writeSignedVarInt(npc.lastDamageDealt);
+        if ((mask & NPC_WORLD_X) != 0)
+            writer.writeVarInt(npc.worldX);
+        if ((mask & NPC_WORLD_Y) != 0)
+            writer.writeVarInt(npc.worldY);
+        if ((mask & NPC_LAST_TICK_X) != 0)
+            writer.writeVarInt(npc.lastTickX);
+        if ((mask & NPC_LAST_TICK_Y) != 0)
+            writer.writeVarInt(npc.lastTickY);
+        if ((mask & NPC_NEXT_TILE_DIRECTION) != 0)
+            writer.writeByte(npc.nextTileDirection.ordinal());
+        if ((mask & NPC_FACING_DIRECTION) != 0)
+            writer.writeByte(npc.facingDirection.ordinal());
+        if ((mask & NPC_IS_DYING) != 0)
+            writer.writeBoolean(npc.isDying);
+    }
+
+    private void writeItem(DTOItem item) {
+        int mask = 0;
+        mask |= item.getItemID() != null ? ITEM_UNIQUE_ID : 0;
+        mask |= item.getItemID() != null ? ITEM_ITEM_ID : 0;
+        mask |= item.getAmount() != null ? ITEM_AMOUNT : 0;
+        mask |= item.getWorldX() != null ? ITEM_WORLD_X : 0;
+        mask |= item.getWorldY() != null ? ITEM_WORLD_Y : 0;
+        mask |= item.getIsDeleted() != null ? ITEM_IS_DELETED : 0;
+
+        writer.writeVarInt(item.getHandle());
+        writer.writeVarInt(mask);
+
+        if ((mask & ITEM_UNIQUE_ID) != 0)
+            writer.writeString(item.getUniqueID());
+        if ((mask & ITEM_ITEM_ID) != 0)
+            writer.writeVarInt(item.getItemID());
+        if ((mask & ITEM_AMOUNT) != 0)
+            writer.writeVarInt(item.getAmount());
+        if ((mask & ITEM_WORLD_X) != 0)
+            writer.writeVarInt(item.getWorldX());
+        if ((mask & ITEM_WORLD_Y) != 0)
+            writer.writeVarInt(item.getWorldY());
+        if ((mask & ITEM_IS_DELETED) != 0)
+            writer.writeBoolean(item.getIsDeleted());
+    }
+
+    private void writeHandle(String entityID) {
+        writer.writeVarInt(entityID != null ? entityHandles.applyAsInt(entityID) : 0);
+    }
+
+    private void writeHandles(List<String> entityIDs) {
+        writer.writeVarInt(entityIDs.size());
+        for (String entityID : entityIDs) {
+            writeHandle(entityID);
+        }
+    }
+
+    private static int present(List<?> list, int section) {
+        return list != null && !list.isEmpty() ? section : 0;
+    }
+}
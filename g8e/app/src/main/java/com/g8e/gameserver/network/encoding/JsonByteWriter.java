@@ -0,0 +1,212 @@
+package com.g8e.gameserver.network.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes JSON straight into a reusable UTF-8 buffer. Strings are escaped the
+ * way Gson escapes them by default (HTML safe), so the output is byte for
+ * byte what Gson would produce for the same values.
+ *
+ * Commas are placed by looking at the previous byte: after an opening
+ * bracket or a name nothing is needed, after any finished value a comma is.
+ */
+public class JsonByteWriter {
+    private static final byte[][] REPLACEMENTS = new byte[128][];
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    // Valid in JSON but not in JavaScript source, Gson escapes them too
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            REPLACEMENTS[c] = unicodeEscape(c);
+        }
+        REPLACEMENTS['"'] = ascii("\\\"");
+        REPLACEMENTS['\\'] = ascii("\\\\");
+        REPLACEMENTS['\t'] = ascii("\\t");
+        REPLACEMENTS['\b'] = ascii("\\b");
+        REPLACEMENTS['\n'] = ascii("\\n");
+        REPLACEMENTS['\r'] = ascii("\\r");
+        REPLACEMENTS['\f'] = ascii("\\f");
+        REPLACEMENTS['<'] = unicodeEscape('<');
+        REPLACEMENTS['>'] = unicodeEscape('>');
+        REPLACEMENTS['&'] = unicodeEscape('&');
+        REPLACEMENTS['='] = unicodeEscape('=');
+        REPLACEMENTS['\''] = unicodeEscape('\'');
+    }
+
+    private byte[] buffer;
+    private int position;
+
+    public JsonByteWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public void beginObject() {
+        separate();
+        writeByte('{');
+    }
+
+    public void endObject() {
+        writeByte('}');
+    }
+
+    public void beginArray() {
+        separate();
+        writeByte('[');
+    }
+
+    public void endArray() {
+        writeByte(']');
+    }
+
+    // Names are the Java field names, plain ASCII that needs no escaping
+    public void name(String name) {
+        separate();
+        ensureCapacity(name.length() + 3);
+        buffer[position++] = '"';
+        for (int i = 0; i < name.length(); i++) {
+            buffer[position++] = (byte) name.charAt(i);
+        }
+        buffer[position++] = '"';
+        buffer[position++] = ':';
+    }
+
+    public void value(String value) {
+        separate();
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeString(value);
+        }
+    }
+
+    public void value(boolean value) {
+        separate();
+        writeBytes(value ? TRUE : FALSE);
+    }
+
+    public void value(long value) {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            writeBytes(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    public void value(int[] values) {
+        beginArray();
+        for (int value : values) {
+            value(value);
+        }
+        endArray();
+    }
+
+    private void writeString(String value) {
+        ensureCapacity(value.length() + 2);
+        buffer[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte[] replacement = REPLACEMENTS[c];
+                if (replacement != null) {
+                    writeBytes(replacement);
+                } else {
+                    writeByte(c);
+                }
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                writeBytes(unicodeEscape(c));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Same as String.getBytes for a surrogate without its pair
+                writeByte('?');
+            } else {
+                ensureCapacity(3);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void separate() {
+        if (position == 0) {
+            return;
+        }
+        byte previous = buffer[position - 1];
+        if (previous != '{' && previous != '[' && previous != ':') {
+            writeByte(',');
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private static byte[] unicodeEscape(int c) {
+        return new byte[] { '\\', 'u', HEX[(c >> 12) & 0xF], HEX[(c >> 8) & 0xF], HEX[(c >> 4) & 0xF],
+                HEX[c & 0xF] };
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
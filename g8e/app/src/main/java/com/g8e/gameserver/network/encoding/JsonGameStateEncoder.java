@@ -0,0 +1,242 @@
+package com.g8e.gameserver.network.encoding;
+
+import java.util.List;
+
+import com.g8e.gameserver.enums.Direction;
+import com.g8e.gameserver.models.ChatMessage;
+import com.g8e.gameserver.models.events.AttackEvent;
+import com.g8e.gameserver.models.events.SoundEvent;
+import com.g8e.gameserver.models.events.TalkEvent;
+import com.g8e.gameserver.models.events.TradeEvent;
+import com.g8e.gameserver.network.GameState;
+import com.g8e.gameserver.network.dataTransferModels.DTOItem;
+import com.g8e.gameserver.network.dataTransferModels.DTONpc;
+import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+
+/**
+ * Writes the game state as the same JSON Gson produces for it, without
+ * reflection and without building a String first. Fields are written in
+ * declaration order and null fields are left out, like Gson does, so a field
+ * added to GameState or a DTO has to be added here in the same place.
+ */
+public class JsonGameStateEncoder {
+    private final JsonByteWriter writer = new JsonByteWriter(4096);
+
+    public byte[] encode(GameState gameState) {
+        writer.reset();
+        writer.beginObject();
+
+        if (gameState.getTickAttackEvents() != null) {
+            writer.name("tickAttackEvents");
+            writer.beginArray();
+            for (AttackEvent event : gameState.getTickAttackEvents()) {
+                writer.beginObject();
+                writeField("attackerID", event.attackerID);
+                writeField("targetID", event.targetID);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+
+        if (gameState.getTickTalkEvents() != null) {
+            writer.name("tickTalkEvents");
+            writer.beginArray();
+            for (TalkEvent event : gameState.getTickTalkEvents()) {
+                writer.beginObject();
+                writeField("talkerID", event.talkerID);
+                writeField("targetID", event.targetID);
+                writer.name("targetIndex");
+                writer.value(event.targetIndex);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+
+        if (gameState.getTickTradeEvents() != null) {
+            writer.name("tickTradeEvents");
+            writer.beginArray();
+            for (TradeEvent event : gameState.getTickTradeEvents()) {
+                writer.beginObject();
+                writeField("traderID", event.traderID);
+                writeField("targetID", event.targetID);
+                writer.name("targetIndex");
+                writer.value(event.targetIndex);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+
+        if (gameState.getTickSoundEvents() != null) {
+            writer.name("tickSoundEvents");
+            writer.beginArray();
+            for (SoundEvent event : gameState.getTickSoundEvents()) {
+                writer.beginObject();
+                writeField("soundName", event.soundName);
+                writer.name("isSfx");
+                writer.value(event.isSfx);
+                writer.name("shouldInterrupt");
+                writer.value(event.shouldInterrupt);
+                writeField("entityID", event.entityID);
+                writer.name("isGlobal");
+                writer.value(event.isGlobal);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+
+        if (gameState.getPlayers() != null) {
+            writer.name("players");
+            writer.beginArray();
+            for (DTOPlayer player : gameState.getPlayers()) {
+                writePlayer(player);
+            }
+            writer.endArray();
+        }
+
+        if (gameState.getNpcs() != null) {
+            writer.name("npcs");
+            writer.beginArray();
+            for (DTONpc npc : gameState.getNpcs()) {
+                writeNpc(npc);
+            }
+            writer.endArray();
+        }
+
+        if (gameState.getChatMessages() != null) {
+            writer.name("chatMessages");
+            writer.beginArray();
+            for (ChatMessage message : gameState.getChatMessages()) {
+                writer.beginObject();
+                writeField("senderName", message.getSenderName());
+                writeField("message", message.getMessage());
+                writer.name("timeSent");
+                writer.value(message.getTimeSent());
+                writer.name("isGlobal");
+                writer.value(message.isGlobal());
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+
+        writeField("playerID", gameState.getPlayerID());
+
+        if (gameState.getItems() != null) {
+            writer.name("items");
+            writer.beginArray();
+            for (DTOItem item : gameState.getItems()) {
+                writeItem(item);
+            }
+            writer.endArray();
+        }
+
+        writeStrings("outOfRangeNpcs", gameState.getOutOfRangeNpcs());
+        writeStrings("onlinePlayers", gameState.getOnlinePlayers());
+
+        writer.endObject();
+        return writer.toByteArray();
+    }
+
+    private void writePlayer(DTOPlayer player) {
+        writer.beginObject();
+        writeField("inventory", player.inventory);
+        writeField("inventoryAmounts", player.inventoryAmounts);
+        writeField("questProgress", player.questProgress);
+        writeField("influence", player.influence);
+        writeField("skinColor", player.skinColor);
+        writeField("hairColor", player.hairColor);
+        writeField("shirtColor", player.shirtColor);
+        writeField("pantsColor", player.pantsColor);
+        writeField("username", player.username);
+        writeField("skills", player.skills);
+        writeField("currentHitpoints", player.currentHitpoints);
+        writeField("isInCombat", player.isInCombat);
+        writeField("weapon", player.weapon);
+        writeField("shield", player.shield);
+        writeField("attackStyle", player.attackStyle);
+        writeField("lastDamageDealt", player.lastDamageDealt);
+        writeField("entityID", player.entityID);
+        writeField("worldX", player.worldX);
+        writeField("worldY", player.worldY);
+        writeField("lastTickX", player.lastTickX);
+        writeField("lastTickY", player.lastTickY);
+        writeField("facingDirection", player.facingDirection);
+        writeField("isDying", player.isDying);
+        writer.endObject();
+    }
+
+    private void writeNpc(DTONpc npc) {
+        writer.beginObject();
+        writeField("npcIndex", npc.npcIndex);
+        writeField("currentHitpoints", npc.currentHitpoints);
+        writeField("isInCombat", npc.isInCombat);
+        writeField("lastDamageDealt", npc.lastDamageDealt);
+        writeField("entityID", npc.entityID);
+        writeField("worldX", npc.worldX);
+        writeField("worldY", npc.worldY);
+        writeField("lastTickX", npc.lastTickX);
+        writeField("lastTickY", npc.lastTickY);
+        writeField("nextTileDirection", npc.nextTileDirection);
+        writeField("facingDirection", npc.facingDirection);
+        writeField("isDying", npc.isDying);
+        writer.endObject();
+    }
+
+    private void writeItem(DTOItem item) {
+        writer.beginObject();
+        writeField("uniqueID", item.getUniqueID());
+        writeField("itemID", item.getItemID());
+        writeField("amount", item.getAmount());
+        writeField("worldX", item.getWorldX());
+        writeField("worldY", item.getWorldY());
+        writeField("isDeleted", item.getIsDeleted());
+        writer.endObject();
+    }
+
+    private void writeStrings(String name, List<String> values) {
+        if (values == null) {
+            return;
+        }
+
+        writer.name(name);
+        writer.beginArray();
+        for (String value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    private void writeField(String name, String value) {
+        if (value != null) {
+            writer.name(name);
+            writer.value(value);
+        }
+    }
+
+    private void writeField(String name, Integer value) {
+        if (value != null) {
+            writer.name(name);
+            writer.value(value.intValue());
+        }
+    }
+
+    private void writeField(String name, Boolean value) {
+        if (value != null) {
+            writer.name(name);
+            writer.value(value.booleanValue());
+        }
+    }
+
+    private void writeField(String name, int[] values) {
+        if (values != null) {
+            writer.name(name);
+            writer.value(values);
+        }
+    }
+
+    private void writeField(String name, Direction value) {
+        if (value != null) {
+            writer.name(name);
+            writer.value(value.name());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.g8e.gameserver.network.encoding;
+
+public enum WireProtocol {
+    JSON,
+    BINARY;
+
+    // Negotiated with the "protocol" query parameter when connecting
+    public static WireProtocol fromQueryParam(String value) {
+        if (value != null && value.equalsIgnoreCase("binary")) {
+            return BINARY;
+        }
+        return JSON;
+    }
+}
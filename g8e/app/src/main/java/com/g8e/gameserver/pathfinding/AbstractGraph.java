@@ -0,0 +1,269 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entrance graph for hierarchical pathfinding. The map is cut into square
+ * chunks, every run of walkable tiles along a chunk border gets one entrance
+ * (two for long runs), which is a node on each side of the border. Nodes on
+ * both sides of an entrance are connected with the cost of one step, nodes
+ * inside the same chunk with the length of the shortest path between them
+ * that stays in the chunk.
+ */
+class AbstractGraph {
+    // Runs at least this long get an entrance at both ends
+    private static final int LONG_ENTRANCE = 6;
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+
+    final CollisionGrid grid;
+    final int chunkSize;
+    final int chunksPerRow;
+    final int chunksPerColumn;
+
+    // Node id -> tile index (x + y * width) and chunk
+    int[] nodeTiles = new int[64];
+    int[] nodeChunks = new int[64];
+    int nodeCount = 0;
+
+    int[][] edgeTargets = new int[64][];
+    int[][] edgeCosts = new int[64][];
+    int[] edgeCounts = new int[64];
+
+    // Nodes of every chunk
+    final int[][] chunkNodes;
+
+    private final ChunkSearch chunkSearch;
+
+    AbstractGraph(CollisionGrid grid, int chunkSize) {
+        this.grid = grid;
+        this.chunkSize = chunkSize;
+        this.chunksPerRow = (grid.getWidth() + chunkSize - 1) / chunkSize;
+        this.chunksPerColumn = (grid.getHeight() + chunkSize - 1) / chunkSize;
+        this.chunkSearch = new ChunkSearch(this);
+
+        List<List<Integer>> nodesByChunk = new ArrayList<>();
+        for (int i = 0; i < chunksPerRow * chunksPerColumn; i++) {
+            nodesByChunk.add(new ArrayList<>());
+        }
+
+        buildEntrances(nodesByChunk);
+
+        this.chunkNodes = new int[nodesByChunk.size()][];
+        for (int chunk = 0; chunk < chunkNodes.length; chunk++) {
+            chunkNodes[chunk] = nodesByChunk.get(chunk).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        buildIntraChunkEdges();
+    }
+
+    int getChunk(int x, int y) {
+        return x / chunkSize + (y / chunkSize) * chunksPerRow;
+    }
+
+    // Distances from a tile to every node of its chunk, -1 for unreachable ones
+    int[] getDistancesToChunkNodes(int x, int y) {
+        int chunk = getChunk(x, y);
+        int[] nodes = chunkNodes[chunk];
+        chunkSearch.run(chunk, x, y);
+
+        int[] distances = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            distances[i] = chunkSearch.getDistance(nodes[i]);
+        }
+        return distances;
+    }
+
+    private void buildEntrances(List<List<Integer>> nodesByChunk) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+
+        // Vertical borders between a chunk and the one to its right
+        for (int borderX = chunkSize; borderX < width; borderX += chunkSize) {
+            for (int startY = 0; startY < height; startY += chunkSize) {
+                int endY = Math.min(startY + chunkSize, height);
+                int runStart = -1;
+                for (int y = startY; y <= endY; y++) {
+                    boolean open = y < endY && !grid.getCollisionByXandY(borderX - 1, y)
+                            && !grid.getCollisionByXandY(borderX, y);
+                    if (open && runStart == -1) {
+                        runStart = y;
+                    } else if (!open && runStart != -1) {
+                        addEntrances(nodesByChunk, runStart, y - 1, borderX, true);
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+
+        // Horizontal borders between a chunk and the one below it
+        for (int borderY = chunkSize; borderY < height; borderY += chunkSize) {
+            for (int startX = 0; startX < width; startX += chunkSize) {
+                int endX = Math.min(startX + chunkSize, width);
+                int runStart = -1;
+                for (int x = startX; x <= endX; x++) {
+                    boolean open = x < endX && !grid.getCollisionByXandY(x, borderY - 1)
+                            && !grid.getCollisionByXandY(x, borderY);
+                    if (open && runStart == -1) {
+                        runStart = x;
+                    } else if (!open && runStart != -1) {
+                        addEntrances(nodesByChunk, runStart, x - 1, borderY, false);
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+    }
+
+    // A run along a vertical border varies in y, the nodes sit left and right of it
+    private void addEntrances(List<List<Integer>> nodesByChunk, int runStart, int runEnd, int border,
+            boolean vertical) {
+        int[] positions = runEnd - runStart + 1 >= LONG_ENTRANCE ? new int[] { runStart, runEnd }
+                : new int[] { (runStart + runEnd) / 2 };
+
+        for (int position : positions) {
+            int x = vertical ? border - 1 : position;
+            int y = vertical ? position : border - 1;
+            int near = addNode(x, y, nodesByChunk);
+            int far = addNode(vertical ? x + 1 : x, vertical ? y : y + 1, nodesByChunk);
+            addEdge(near, far, STRAIGHT_COST);
+            addEdge(far, near, STRAIGHT_COST);
+        }
+    }
+
+    private void buildIntraChunkEdges() {
+        int width = grid.getWidth();
+        for (int chunk = 0; chunk < chunkNodes.length; chunk++) {
+            int[] nodes = chunkNodes[chunk];
+            for (int i = 0; i < nodes.length; i++) {
+                int tile = nodeTiles[nodes[i]];
+                chunkSearch.run(chunk, tile % width, tile / width);
+                for (int j = 0; j < nodes.length; j++) {
+                    int distance = chunkSearch.getDistance(nodes[j]);
+                    if (i != j && distance != -1) {
+                        addEdge(nodes[i], nodes[j], distance);
+                    }
+                }
+            }
+        }
+    }
+
+    private int addNode(int x, int y, List<List<Integer>> nodesByChunk) {
+        if (nodeCount == nodeTiles.length) {
+            int capacity = nodeCount * 2;
+            nodeTiles = Arrays.copyOf(nodeTiles, capacity);
+            nodeChunks = Arrays.copyOf(nodeChunks, capacity);
+            edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+            edgeCosts = Arrays.copyOf(edgeCosts, capacity);
+            edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+        }
+
+        int node = nodeCount++;
+        nodeTiles[node] = x + y * grid.getWidth();
+        nodeChunks[node] = getChunk(x, y);
+        edgeTargets[node] = new int[4];
+        edgeCosts[node] = new int[4];
+        nodesByChunk.get(nodeChunks[node]).add(node);
+        return node;
+    }
+
+    private void addEdge(int from, int to, int cost) {
+        int count = edgeCounts[from];
+        if (count == edgeTargets[from].length) {
+            edgeTargets[from] = Arrays.copyOf(edgeTargets[from], count * 2);
+            edgeCosts[from] = Arrays.copyOf(edgeCosts[from], count * 2);
+        }
+        edgeTargets[from][count] = to;
+        edgeCosts[from][count] = cost;
+        edgeCounts[from]++;
+    }
+
+    /**
+     * Dijkstra that stays inside one chunk, used for the intra-chunk edges and
+     * to connect the start and goal of a search to their chunk's nodes.
+     */
+    private static class ChunkSearch {
+        private static final int[] DIRECTION_X = { 0, 1, 0, -1, 1, -1, 1, -1 };
+        private static final int[] DIRECTION_Y = { 1, 0, -1, 0, 1, 1, -1, -1 };
+
+        private final AbstractGraph graph;
+        private final int[] stamps;
+        private final int[] distances;
+        private final NodeHeap openList;
+        private int generation = 0;
+        private int originX;
+        private int originY;
+
+        ChunkSearch(AbstractGraph graph) {
+            this.graph = graph;
+            int size = graph.chunkSize * graph.chunkSize;
+            this.stamps = new int[size];
+            this.distances = new int[size];
+            this.openList = new NodeHeap(size);
+        }
+
+        void run(int chunk, int startX, int startY) {
+            CollisionGrid grid = graph.grid;
+            int size = graph.chunkSize;
+            originX = (chunk % graph.chunksPerRow) * size;
+            originY = (chunk / graph.chunksPerRow) * size;
+            int chunkWidth = Math.min(size, grid.getWidth() - originX);
+            int chunkHeight = Math.min(size, grid.getHeight() - originY);
+
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+            openList.reset(distances);
+
+            int start = (startX - originX) + (startY - originY) * size;
+            stamps[start] = generation;
+            distances[start] = 0;
+            openList.push(start);
+
+            while (!openList.isEmpty()) {
+                int current = openList.poll();
+                int localX = current % size;
+                int localY = current / size;
+                int x = originX + localX;
+                int y = originY + localY;
+
+                for (int d = 0; d < DIRECTION_X.length; d++) {
+                    int nx = localX + DIRECTION_X[d];
+                    int ny = localY + DIRECTION_Y[d];
+                    if (nx < 0 || ny < 0 || nx >= chunkWidth || ny >= chunkHeight) {
+                        continue;
+                    }
+                    if (grid.getCollisionByXandY(originX + nx, originY + ny)) {
+                        continue;
+                    }
+                    if (d >= 4 && (grid.getCollisionByXandY(x + DIRECTION_X[d], y)
+                            || grid.getCollisionByXandY(x, y + DIRECTION_Y[d]))) {
+                        continue;
+                    }
+
+                    int neighbor = nx + ny * size;
+                    int distance = distances[current] + (d < 4 ? STRAIGHT_COST : DIAGONAL_COST);
+                    if (stamps[neighbor] != generation) {
+                        stamps[neighbor] = generation;
+                        distances[neighbor] = distance;
+                        openList.push(neighbor);
+                    } else if (openList.isOpen(neighbor) && distance < distances[neighbor]) {
+                        distances[neighbor] = distance;
+                        openList.decreased(neighbor);
+                    }
+                }
+            }
+        }
+
+        int getDistance(int node) {
+            int tile = graph.nodeTiles[node];
+            int width = graph.grid.getWidth();
+            int local = (tile % width - originX) + (tile / width - originY) * graph.chunkSize;
+            return stamps[local] == generation ? distances[local] : -1;
+        }
+    }
+}
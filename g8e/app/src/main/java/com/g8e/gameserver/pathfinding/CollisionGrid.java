@@ -0,0 +1,21 @@
+package com.g8e.gameserver.pathfinding;
+
+import com.g8e.gameserver.tile.TilePosition;
+
+// What pathfinders need to know about the map, implemented by TileManager
+public interface CollisionGrid {
+    int getWidth();
+
+    int getHeight();
+
+    // True for blocked tiles and everything outside of the map
+    boolean getCollisionByXandY(int x, int y);
+
+    // Component labels and closest walkable tiles for the current collision
+    Reachability getReachability();
+
+    // Null if the whole map is blocked
+    default TilePosition getClosestWalkableTile(int x, int y) {
+        return getReachability().getClosestWalkableTile(x, y);
+    }
+}
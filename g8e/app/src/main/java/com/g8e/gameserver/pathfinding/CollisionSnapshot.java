@@ -0,0 +1,52 @@
+package com.g8e.gameserver.pathfinding;
+
+/**
+ * Read-only copy of the collision map taken at one collision version, safe
+ * to share between threads.
+ */
+public final class CollisionSnapshot implements CollisionGrid {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+    private final int version;
+    private final Reachability reachability;
+
+    // reachability has to belong to the same collision version
+    public CollisionSnapshot(int width, int height, int wordsPerRow, long[] bits, int version,
+            Reachability reachability) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = wordsPerRow;
+        this.bits = bits;
+        this.version = version;
+        this.reachability = reachability;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public Reachability getReachability() {
+        return reachability;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean getCollisionByXandY(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return true;
+        }
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Distances from every tile in a square window around a goal to the tiles
+ * next to it, so any number of entities heading for the same goal can pick
+ * their next step with a few array reads. The goal tile itself is treated as
+ * blocked since the target stands on it, entities arrive on one of its four
+ * straight neighbours.
+ *
+ * Immutable once built.
+ */
+public class FlowField {
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1, 1, -1, 1, -1 };
+    private static final int[] DIRECTION_Y = { 1, 0, -1, 0, 1, 1, -1, -1 };
+
+    public final int goalX;
+    public final int goalY;
+    public final int collisionVersion;
+
+    private final int originX;
+    private final int originY;
+    private final int size;
+    // -1 where the goal can not be reached inside the window
+    private final int[] distances;
+
+    public FlowField(CollisionGrid grid, int goalX, int goalY, int radius, int collisionVersion) {
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.collisionVersion = collisionVersion;
+        this.originX = goalX - radius;
+        this.originY = goalY - radius;
+        this.size = radius * 2 + 1;
+        this.distances = new int[size * size];
+        Arrays.fill(distances, -1);
+
+        build(grid);
+    }
+
+    // Distance in the same units as the pathfinders, -1 outside of the field
+    public int getDistance(int x, int y) {
+        int localX = x - originX;
+        int localY = y - originY;
+        if (localX < 0 || localY < 0 || localX >= size || localY >= size) {
+            return -1;
+        }
+        return distances[localX + localY * size];
+    }
+
+    private void build(CollisionGrid grid) {
+        NodeHeap openList = new NodeHeap(distances.length);
+        openList.reset(distances);
+
+        for (int d = 0; d < 4; d++) {
+            int x = goalX + DIRECTION_X[d];
+            int y = goalY + DIRECTION_Y[d];
+            if (!isWalkable(grid, x, y)) {
+                continue;
+            }
+            int tile = (x - originX) + (y - originY) * size;
+            distances[tile] = 0;
+            openList.push(tile);
+        }
+
+        while (!openList.isEmpty()) {
+            int current = openList.poll();
+            int x = originX + current % size;
+            int y = originY + current / size;
+
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nx = x + DIRECTION_X[d];
+                int ny = y + DIRECTION_Y[d];
+                int localX = nx - originX;
+                int localY = ny - originY;
+                if (localX < 0 || localY < 0 || localX >= size || localY >= size || !isWalkable(grid, nx, ny)) {
+                    continue;
+                }
+                // Same corner rule as walking, so the field is symmetric
+                if (d >= 4 && (!isWalkable(grid, x + DIRECTION_X[d], y) || !isWalkable(grid, x, y + DIRECTION_Y[d]))) {
+                    continue;
+                }
+
+                int neighbor = localX + localY * size;
+                int distance = distances[current] + (d < 4 ? 10 : 14);
+                if (distances[neighbor] == -1) {
+                    distances[neighbor] = distance;
+                    openList.push(neighbor);
+                } else if (openList.isOpen(neighbor) && distance < distances[neighbor]) {
+                    distances[neighbor] = distance;
+                    openList.decreased(neighbor);
+                }
+            }
+        }
+    }
+
+    private boolean isWalkable(CollisionGrid grid, int x, int y) {
+        return !(x == goalX && y == goalY) && !grid.getCollisionByXandY(x, y);
+    }
+}
@@ -0,0 +1,171 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.g8e.gameserver.tile.TilePosition;
+
+/**
+ * Scratch state shared by the grid searches. Arrays are indexed by
+ * x + y * width and allocated once, a node belongs to the current search only
+ * when its stamp matches the search generation, so nothing needs clearing
+ * between searches.
+ *
+ * Not thread safe, get an instance through World.getPathFinder().
+ */
+abstract class GridPathfinder implements Pathfinder {
+    protected final CollisionGrid grid;
+    protected final int width;
+    protected final int height;
+
+    protected final int[] stamps;
+    protected final int[] gScores;
+    protected final int[] fScores;
+    protected final int[] parents;
+    protected final NodeHeap openList;
+    protected int generation = 0;
+    protected int expandedNodes = 0;
+
+    protected GridPathfinder(CollisionGrid grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+
+        int size = width * height;
+        this.stamps = new int[size];
+        this.gScores = new int[size];
+        this.fScores = new int[size];
+        this.parents = new int[size];
+        this.openList = new NodeHeap(size);
+    }
+
+    @Override
+    public List<PathNode> findPath(int startX, int startY, int targetX, int targetY) {
+        if (grid.getCollisionByXandY(targetX, targetY)) {
+            // find closest walkable tile
+            TilePosition closestWalkableTile = grid.getClosestWalkableTile(targetX, targetY);
+
+            if (closestWalkableTile == null) {
+                return new ArrayList<>(); // Early exit if target is unreachable
+            }
+
+            targetX = closestWalkableTile.x;
+            targetY = closestWalkableTile.y;
+        }
+
+        expandedNodes = 0;
+        if (startX < 0 || startY < 0 || startX >= width || startY >= height) {
+            return new ArrayList<>();
+        }
+
+        if (!grid.getReachability().isConnected(startX, startY, targetX, targetY)) {
+            return new ArrayList<>(); // Different areas of the map, nothing to search
+        }
+
+        nextGeneration();
+        openList.reset(fScores);
+
+        int start = startX + startY * width;
+        visit(start, 0, getDistance(startX, startY, targetX, targetY), -1);
+        openList.push(start);
+
+        int target = search(targetX, targetY);
+        if (target == -1) {
+            // If no path is found, return an empty list
+            return new ArrayList<>();
+        }
+        return constructPath(target);
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    // Runs the search from the start node already on the open list, returns
+    // the target node or -1
+    protected abstract int search(int targetX, int targetY);
+
+    protected boolean isVisited(int node) {
+        return stamps[node] == generation;
+    }
+
+    protected void visit(int node, int g, int f, int parent) {
+        stamps[node] = generation;
+        gScores[node] = g;
+        fScores[node] = f;
+        parents[node] = parent;
+    }
+
+    // Records a cheaper way to a node, returns false if the node was not improved
+    protected boolean relax(int node, int g, int h, int parent) {
+        if (!isVisited(node)) {
+            visit(node, g, g + h, parent);
+            openList.push(node);
+            return true;
+        }
+
+        if (openList.isOpen(node) && g < gScores[node]) {
+            gScores[node] = g;
+            fScores[node] = g + h;
+            parents[node] = parent;
+            openList.decreased(node);
+            return true;
+        }
+
+        return false;
+    }
+
+    protected static int getDistance(int ax, int ay, int bx, int by) {
+        int dx = Math.abs(ax - bx);
+        int dy = Math.abs(ay - by);
+
+        int straight = Math.abs(dx - dy);
+        int diagonal = Math.min(dx, dy);
+
+        // scale by 10 to keep ints
+        return diagonal * 14 + straight * 10;
+    }
+
+    // Walks the parents back to the start, filling in the tiles between
+    // nodes that are further apart than one step
+    private List<PathNode> constructPath(int node) {
+        List<PathNode> path = new ArrayList<>();
+        while (node != -1) {
+            int x = node % width;
+            int y = node / width;
+            path.add(new PathNode(x, y, null));
+
+            int parent = parents[node];
+            if (parent != -1) {
+                int stepX = Integer.signum(parent % width - x);
+                int stepY = Integer.signum(parent / width - y);
+                x += stepX;
+                y += stepY;
+                while (x + y * width != parent) {
+                    path.add(new PathNode(x, y, null));
+                    x += stepX;
+                    y += stepY;
+                }
+            }
+            node = parent;
+        }
+        Collections.reverse(path); // Reverse to get the path from start to target
+
+        for (int i = 1; i < path.size(); i++) {
+            path.get(i).parent = path.get(i - 1);
+        }
+        return path;
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == 0) {
+            // Wrapped around, old stamps could collide with the new generation
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.g8e.gameserver.tile.TilePosition;
+import com.g8e.gameserver.util.Metrics;
+
+/**
+ * Plans long paths on the chunk entrance graph instead of the tile grid. A
+ * plan is a list of tiles where the path enters a new chunk, ending at the
+ * goal. Entities refine it into tiles one leg at a time while walking, so a
+ * path across the whole map costs one abstract search plus a short grid
+ * search per chunk.
+ *
+ * The graph is rebuilt on the first plan after the collision map changes.
+ */
+public class HierarchicalPathfinder {
+    private final CollisionGrid grid;
+    private final int chunkSize;
+    private final int directRange;
+
+    private AbstractGraph graph;
+    private int graphVersion;
+
+    // Scratch for the abstract search, graph nodes first, then start and goal
+    private int[] stamps;
+    private int[] gScores;
+    private int[] fScores;
+    private int[] parents;
+    private NodeHeap openList;
+    private int generation = 0;
+
+    // Goals within directRange tiles are left to the grid search
+    public HierarchicalPathfinder(CollisionGrid grid, int chunkSize, int directRange) {
+        this.grid = grid;
+        this.chunkSize = chunkSize;
+        this.directRange = directRange;
+    }
+
+    // Null when start and goal are close enough to search the grid directly,
+    // empty when the goal can not be reached
+    public synchronized List<TilePosition> findPlan(int startX, int startY, int targetX, int targetY,
+            int collisionVersion) {
+        if (grid.getCollisionByXandY(targetX, targetY)) {
+            TilePosition closestWalkableTile = grid.getClosestWalkableTile(targetX, targetY);
+            if (closestWalkableTile == null) {
+                return new ArrayList<>();
+            }
+            targetX = closestWalkableTile.x;
+            targetY = closestWalkableTile.y;
+        }
+
+        if (startX < 0 || startY < 0 || startX >= grid.getWidth() || startY >= grid.getHeight()) {
+            return new ArrayList<>();
+        }
+
+        if (!grid.getReachability().isConnected(startX, startY, targetX, targetY)) {
+            return new ArrayList<>();
+        }
+
+        if (Math.max(Math.abs(targetX - startX), Math.abs(targetY - startY)) <= directRange) {
+            return null;
+        }
+
+        if (graph == null || graphVersion != collisionVersion) {
+            rebuild(collisionVersion);
+        }
+
+        int startChunk = graph.getChunk(startX, startY);
+        int goalChunk = graph.getChunk(targetX, targetY);
+        if (startChunk == goalChunk) {
+            return null;
+        }
+
+        Metrics.increment("hpa.plans");
+        List<Integer> nodes = search(startX, startY, targetX, targetY);
+        if (nodes == null) {
+            return new ArrayList<>();
+        }
+
+        List<TilePosition> plan = new ArrayList<>();
+        int width = grid.getWidth();
+        for (int i = 0; i < nodes.size(); i++) {
+            int node = nodes.get(i);
+            // Border tiles the path leaves a chunk from are reached on the way
+            // to the tile across the border
+            if (i + 1 < nodes.size() && graph.nodeChunks[node] != graph.nodeChunks[nodes.get(i + 1)]) {
+                continue;
+            }
+            int tile = graph.nodeTiles[node];
+            plan.add(new TilePosition(tile % width, tile / width));
+        }
+        plan.add(new TilePosition(targetX, targetY));
+        return plan;
+    }
+
+    private void rebuild(int collisionVersion) {
+        long start = System.nanoTime();
+        graph = new AbstractGraph(grid, chunkSize);
+        graphVersion = collisionVersion;
+
+        int size = graph.nodeCount + 2;
+        stamps = new int[size];
+        gScores = new int[size];
+        fScores = new int[size];
+        parents = new int[size];
+        openList = new NodeHeap(size);
+        generation = 0;
+
+        Metrics.increment("hpa.rebuilds");
+        Metrics.setGauge("hpa.graphNodes", graph.nodeCount);
+        Metrics.setGauge("hpa.rebuildMicros", (System.nanoTime() - start) / 1000);
+    }
+
+    // Graph nodes on the cheapest abstract path, excluding start and goal
+    private List<Integer> search(int startX, int startY, int targetX, int targetY) {
+        int start = graph.nodeCount;
+        int goal = graph.nodeCount + 1;
+
+        int[] startNodes = graph.chunkNodes[graph.getChunk(startX, startY)];
+        int[] startDistances = graph.getDistancesToChunkNodes(startX, startY);
+        int goalChunk = graph.getChunk(targetX, targetY);
+        int[] goalNodes = graph.chunkNodes[goalChunk];
+        int[] goalDistances = graph.getDistancesToChunkNodes(targetX, targetY);
+
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        openList.reset(fScores);
+        visit(start, 0, 0, -1);
+        int expandedNodes = 0;
+
+        for (int i = 0; i < startNodes.length; i++) {
+            if (startDistances[i] != -1) {
+                relax(startNodes[i], startDistances[i], getHeuristic(startNodes[i], targetX, targetY), start);
+            }
+        }
+
+        while (!openList.isEmpty()) {
+            int current = openList.poll();
+            expandedNodes++;
+            if (current == goal) {
+                break;
+            }
+
+            for (int e = 0; e < graph.edgeCounts[current]; e++) {
+                int neighbor = graph.edgeTargets[current][e];
+                relax(neighbor, gScores[current] + graph.edgeCosts[current][e],
+                        getHeuristic(neighbor, targetX, targetY), current);
+            }
+
+            if (graph.nodeChunks[current] == goalChunk) {
+                for (int i = 0; i < goalNodes.length; i++) {
+                    if (goalNodes[i] == current && goalDistances[i] != -1) {
+                        relax(goal, gScores[current] + goalDistances[i], 0, current);
+                    }
+                }
+            }
+        }
+        Metrics.setGauge("hpa.expandedNodes", expandedNodes);
+
+        if (stamps[goal] != generation) {
+            return null;
+        }
+
+        List<Integer> nodes = new ArrayList<>();
+        for (int node = parents[goal]; node != start; node = parents[node]) {
+            nodes.add(node);
+        }
+        Collections.reverse(nodes);
+        return nodes;
+    }
+
+    private void visit(int node, int g, int f, int parent) {
+        stamps[node] = generation;
+        gScores[node] = g;
+        fScores[node] = f;
+        parents[node] = parent;
+    }
+
+    private void relax(int node, int g, int h, int parent) {
+        if (stamps[node] != generation) {
+            visit(node, g, g + h, parent);
+            openList.push(node);
+        } else if (openList.isOpen(node) && g < gScores[node]) {
+            gScores[node] = g;
+            fScores[node] = g + h;
+            parents[node] = parent;
+            openList.decreased(node);
+        }
+    }
+
+    private int getHeuristic(int node, int targetX, int targetY) {
+        int tile = graph.nodeTiles[node];
+        int width = grid.getWidth();
+        return GridPathfinder.getDistance(tile % width, tile / width, targetX, targetY);
+    }
+}
@@ -0,0 +1,177 @@
+package com.g8e.gameserver.pathfinding;
+
+/**
+ * Jump Point Search for the uniform-cost tile grid. Diagonal moves follow the
+ * same rule as Entity.canMove and AStar: both tiles next to the diagonal have
+ * to be free. With that rule a straight jump only stops where an obstacle
+ * beside it ends, and a diagonal jump stops where one of its straight jumps
+ * finds something. Paths are as short as the ones from AStar, but the tiles
+ * on them can differ when several shortest paths exist.
+ */
+public class JumpPointSearch extends GridPathfinder {
+    private int targetX;
+    private int targetY;
+
+    public JumpPointSearch(CollisionGrid grid) {
+        super(grid);
+    }
+
+    @Override
+    protected int search(int targetX, int targetY) {
+        this.targetX = targetX;
+        this.targetY = targetY;
+
+        while (!openList.isEmpty()) {
+            int current = openList.poll();
+            expandedNodes++;
+            int x = current % width;
+            int y = current / width;
+
+            if (x == targetX && y == targetY) {
+                return current;
+            }
+
+            int parent = parents[current];
+            if (parent == -1) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if ((dx != 0 || dy != 0) && canStep(x, y, dx, dy)) {
+                            jumpFrom(current, x, y, dx, dy);
+                        }
+                    }
+                }
+                continue;
+            }
+
+            int dx = Integer.signum(x - parent % width);
+            int dy = Integer.signum(y - parent / width);
+
+            if (dx != 0 && dy != 0) {
+                boolean verticalFree = isFree(x, y + dy);
+                boolean horizontalFree = isFree(x + dx, y);
+                if (verticalFree) {
+                    jumpFrom(current, x, y, 0, dy);
+                }
+                if (horizontalFree) {
+                    jumpFrom(current, x, y, dx, 0);
+                }
+                if (verticalFree && horizontalFree) {
+                    jumpFrom(current, x, y, dx, dy);
+                }
+            } else if (dx != 0) {
+                boolean nextFree = isFree(x + dx, y);
+                boolean downFree = isFree(x, y + 1);
+                boolean upFree = isFree(x, y - 1);
+                if (nextFree) {
+                    jumpFrom(current, x, y, dx, 0);
+                    if (downFree) {
+                        jumpFrom(current, x, y, dx, 1);
+                    }
+                    if (upFree) {
+                        jumpFrom(current, x, y, dx, -1);
+                    }
+                }
+                if (downFree) {
+                    jumpFrom(current, x, y, 0, 1);
+                }
+                if (upFree) {
+                    jumpFrom(current, x, y, 0, -1);
+                }
+            } else {
+                boolean nextFree = isFree(x, y + dy);
+                boolean rightFree = isFree(x + 1, y);
+                boolean leftFree = isFree(x - 1, y);
+                if (nextFree) {
+                    jumpFrom(current, x, y, 0, dy);
+                    if (rightFree) {
+                        jumpFrom(current, x, y, 1, dy);
+                    }
+                    if (leftFree) {
+                        jumpFrom(current, x, y, -1, dy);
+                    }
+                }
+                if (rightFree) {
+                    jumpFrom(current, x, y, 1, 0);
+                }
+                if (leftFree) {
+                    jumpFrom(current, x, y, -1, 0);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private void jumpFrom(int current, int x, int y, int dx, int dy) {
+        int jumpPoint = dx != 0 && dy != 0 ? jumpDiagonal(x + dx, y + dy, dx, dy)
+                : jumpStraight(x + dx, y + dy, dx, dy);
+        if (jumpPoint == -1) {
+            return;
+        }
+
+        int jx = jumpPoint % width;
+        int jy = jumpPoint / width;
+        int gCost = gScores[current] + getDistance(x, y, jx, jy);
+        relax(jumpPoint, gCost, getDistance(jx, jy, targetX, targetY), current);
+    }
+
+    private int jumpStraight(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!isFree(x, y)) {
+                return -1;
+            }
+            if (x == targetX && y == targetY) {
+                return x + y * width;
+            }
+
+            // Forced neighbor: a wall beside us ends, the way around it opens here
+            if (dx != 0) {
+                if ((isFree(x, y - 1) && !isFree(x - dx, y - 1))
+                        || (isFree(x, y + 1) && !isFree(x - dx, y + 1))) {
+                    return x + y * width;
+                }
+            } else {
+                if ((isFree(x - 1, y) && !isFree(x - 1, y - dy))
+                        || (isFree(x + 1, y) && !isFree(x + 1, y - dy))) {
+                    return x + y * width;
+                }
+            }
+
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private int jumpDiagonal(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!isFree(x, y)) {
+                return -1;
+            }
+            if (x == targetX && y == targetY) {
+                return x + y * width;
+            }
+
+            if (jumpStraight(x + dx, y, dx, 0) != -1 || jumpStraight(x, y + dy, 0, dy) != -1) {
+                return x + y * width;
+            }
+
+            if (!isFree(x + dx, y) || !isFree(x, y + dy)) {
+                return -1;
+            }
+
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private boolean canStep(int x, int y, int dx, int dy) {
+        if (!isFree(x + dx, y + dy)) {
+            return false;
+        }
+        return dx == 0 || dy == 0 || (isFree(x + dx, y) && isFree(x, y + dy));
+    }
+
+    private boolean isFree(int x, int y) {
+        return !grid.getCollisionByXandY(x, y);
+    }
+}
@@ -0,0 +1,91 @@
+package com.g8e.gameserver.pathfinding;
+
+/**
+ * Binary min-heap of node indexes ordered by an external score array, with
+ * the position of every node tracked so its score can be lowered in place.
+ * Sifting follows java.util.PriorityQueue so nodes with equal scores come out
+ * in the same order as they would from a PriorityQueue.
+ */
+class NodeHeap {
+    static final int CLOSED = -1;
+
+    private final int[] heap;
+    private final int[] heapIndexes;
+    private int[] scores;
+    private int size;
+
+    NodeHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.heapIndexes = new int[capacity];
+    }
+
+    void reset(int[] scores) {
+        this.scores = scores;
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isOpen(int node) {
+        return heapIndexes[node] != CLOSED;
+    }
+
+    void push(int node) {
+        siftUp(size++, node);
+    }
+
+    // Call after lowering the score of a node that is still open
+    void decreased(int node) {
+        siftUp(heapIndexes[node], node);
+    }
+
+    // Removes the node with the lowest score and marks it closed
+    int poll() {
+        int result = heap[0];
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        heapIndexes[result] = CLOSED;
+        return result;
+    }
+
+    private void siftUp(int index, int node) {
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            if (scores[node] >= scores[parent]) {
+                break;
+            }
+            place(index, parent);
+            index = parentIndex;
+        }
+        place(index, node);
+    }
+
+    private void siftDown(int index, int node) {
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            int child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && scores[child] > scores[heap[rightIndex]]) {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (scores[node] <= scores[child]) {
+                break;
+            }
+            place(index, child);
+            index = childIndex;
+        }
+        place(index, node);
+    }
+
+    private void place(int index, int node) {
+        heap[index] = node;
+        heapIndexes[node] = index;
+    }
+}
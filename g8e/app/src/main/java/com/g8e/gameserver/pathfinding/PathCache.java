@@ -0,0 +1,121 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.g8e.gameserver.util.Metrics;
+
+/**
+ * Bounded LRU cache of found paths keyed by start and goal tile. Paths are
+ * stored as a string with one character per step (an index into STEP_X and
+ * STEP_Y) and stamped with the collision version of the map they were found
+ * on, so any tile change makes them stale.
+ */
+public class PathCache {
+    private static final int[] STEP_X = { 0, 1, 0, -1, 1, -1, 1, -1 };
+    private static final int[] STEP_Y = { 1, 0, -1, 0, 1, 1, -1, -1 };
+
+    // Steps are null when no path was found
+    private record CachedPath(int collisionVersion, String steps) {
+    }
+
+    private final Map<Long, CachedPath> paths;
+    private long hits;
+    private long lookups;
+
+    public PathCache(int capacity) {
+        this.paths = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedPath> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Returns null on a miss, an empty list if the goal was cached as unreachable
+    public synchronized List<PathNode> get(int startX, int startY, int goalX, int goalY, int collisionVersion) {
+        long key = getKey(startX, startY, goalX, goalY);
+        CachedPath cached = paths.get(key);
+
+        if (cached == null || cached.collisionVersion() != collisionVersion) {
+            if (cached != null) {
+                paths.remove(key);
+            }
+            recordLookup(false);
+            return null;
+        }
+
+        recordLookup(true);
+        return decode(startX, startY, cached.steps());
+    }
+
+    public synchronized void put(int startX, int startY, int goalX, int goalY, int collisionVersion,
+            List<PathNode> path) {
+        String steps = null;
+        if (!path.isEmpty()) {
+            steps = encode(path);
+            if (steps == null) {
+                return;
+            }
+        }
+
+        paths.put(getKey(startX, startY, goalX, goalY), new CachedPath(collisionVersion, steps));
+        Metrics.setGauge("pathCache.size", paths.size());
+    }
+
+    private void recordLookup(boolean hit) {
+        lookups++;
+        if (hit) {
+            hits++;
+            Metrics.increment("pathCache.hits");
+        } else {
+            Metrics.increment("pathCache.misses");
+        }
+        Metrics.setGauge("pathCache.hitRatePercent", hits * 100 / lookups);
+    }
+
+    private static long getKey(int startX, int startY, int goalX, int goalY) {
+        return ((long) (startX & 0xFFFF) << 48) | ((long) (startY & 0xFFFF) << 32)
+                | ((long) (goalX & 0xFFFF) << 16) | (goalY & 0xFFFF);
+    }
+
+    private static String encode(List<PathNode> path) {
+        StringBuilder steps = new StringBuilder(path.size());
+        for (int i = 1; i < path.size(); i++) {
+            int step = getStep(path.get(i).x - path.get(i - 1).x, path.get(i).y - path.get(i - 1).y);
+            if (step == -1) {
+                // Not a path of single tile steps, nothing to cache
+                return null;
+            }
+            steps.append((char) ('0' + step));
+        }
+        return steps.toString();
+    }
+
+    private static List<PathNode> decode(int startX, int startY, String steps) {
+        if (steps == null) {
+            return new ArrayList<>();
+        }
+
+        List<PathNode> path = new ArrayList<>(steps.length() + 1);
+        PathNode node = new PathNode(startX, startY, null);
+        path.add(node);
+        for (int i = 0; i < steps.length(); i++) {
+            int step = steps.charAt(i) - '0';
+            node = new PathNode(node.x + STEP_X[step], node.y + STEP_Y[step], node);
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static int getStep(int dx, int dy) {
+        for (int i = 0; i < STEP_X.length; i++) {
+            if (STEP_X[i] == dx && STEP_Y[i] == dy) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
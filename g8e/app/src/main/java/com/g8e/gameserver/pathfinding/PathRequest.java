@@ -0,0 +1,77 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.List;
+
+import com.g8e.gameserver.tile.TilePosition;
+
+/**
+ * Ticket for a search queued with the PathRequestManager. Entities poll
+ * isDone and then read either a plan for a long path or a tile path. Tickets
+ * for the same start and goal are shared, a ticket is cancelled once none of
+ * the entities waiting for it wants it anymore.
+ */
+public class PathRequest {
+    public final int startX;
+    public final int startY;
+    public final int targetX;
+    public final int targetY;
+    public final long submittedNanos;
+
+    private List<TilePosition> plan;
+    private List<PathNode> path;
+    private long completedNanos;
+    // Written last, publishes the result to the tick thread
+    private volatile boolean done;
+    // Entities waiting for the ticket, only used on the tick thread
+    private int users;
+    private boolean cancelled;
+
+    public PathRequest(int startX, int startY, int targetX, int targetY) {
+        this.startX = startX;
+        this.startY = startY;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.submittedNanos = System.nanoTime();
+    }
+
+    public void complete(List<TilePosition> plan, List<PathNode> path) {
+        this.plan = plan;
+        this.path = path;
+        this.completedNanos = System.nanoTime();
+        this.done = true;
+    }
+
+    public void addUser() {
+        users++;
+    }
+
+    // True when this was the last entity waiting, the ticket is cancelled then
+    public boolean removeUser() {
+        if (--users > 0) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    // Null unless the path was planned over chunks
+    public List<TilePosition> getPlan() {
+        return plan;
+    }
+
+    public List<PathNode> getPath() {
+        return path;
+    }
+
+    public long getWaitNanos() {
+        return completedNanos - submittedNanos;
+    }
+}
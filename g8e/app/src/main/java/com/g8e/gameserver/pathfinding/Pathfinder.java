@@ -0,0 +1,13 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.List;
+
+public interface Pathfinder {
+    // Path from start to target one tile per step, start included. Empty if
+    // the target can not be reached. A blocked target is replaced by the
+    // closest walkable tile.
+    List<PathNode> findPath(int startX, int startY, int targetX, int targetY);
+
+    // Nodes taken off the open list during the last search
+    int getExpandedNodes();
+}
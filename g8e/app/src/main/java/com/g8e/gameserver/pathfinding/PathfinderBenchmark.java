@@ -0,0 +1,146 @@
+package com.g8e.gameserver.pathfinding;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.g8e.gameserver.World;
+import com.g8e.gameserver.tile.TilePosition;
+import com.g8e.util.Logger;
+
+/**
+ * Compares AStar and JumpPointSearch on the shipped map and on generated
+ * maps. All searches get the same random queries, the report shows node
+ * expansions and time per query. LegacyAStar, the search AStar replaced, is
+ * the baseline on maps small enough for its linear open list checks. Run
+ * with the "benchmark-pathfinding" argument.
+ */
+public class PathfinderBenchmark {
+    private static final int QUERIES = 1000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int LEGACY_MAX_TILES = 256 * 256;
+
+    public static void run() {
+        World world = new World();
+        compare("shipped map", world.tileManager, new Random(1));
+
+        int[] sizes = { 50, 256, 1024 };
+        for (int size : sizes) {
+            compare("generated " + size + "x" + size, GeneratedGrid.create(size, new Random(size)),
+                    new Random(size + 1));
+        }
+    }
+
+    private static void compare(String name, CollisionGrid grid, Random random) {
+        int[] queries = createQueries(grid, random);
+        Map<String, Pathfinder> pathfinders = new LinkedHashMap<>();
+        if (grid.getWidth() * grid.getHeight() <= LEGACY_MAX_TILES) {
+            pathfinders.put("legacy", new LegacyAStar(grid));
+        }
+        pathfinders.put("astar", new AStar(grid));
+        pathfinders.put("jps", new JumpPointSearch(grid));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Pathfinder pathfinder : pathfinders.values()) {
+                measure(pathfinder, queries);
+            }
+        }
+
+        int count = queries.length / 4;
+        StringBuilder report = new StringBuilder(name + ": " + count + " queries");
+        for (Map.Entry<String, Pathfinder> entry : pathfinders.entrySet()) {
+            long[] result = measure(entry.getValue(), queries);
+            report.append(String.format("%n  %-7s %d expansions, %d us per query", entry.getKey() + ":",
+                    result[0] / count, result[1] / count / 1000));
+        }
+        Logger.printInfo(report.toString());
+    }
+
+    // Returns total expansions and total nanos
+    private static long[] measure(Pathfinder pathfinder, int[] queries) {
+        long expansions = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries.length; i += 4) {
+            List<PathNode> path = pathfinder.findPath(queries[i], queries[i + 1], queries[i + 2], queries[i + 3]);
+            expansions += pathfinder.getExpandedNodes();
+            if (path == null) {
+                throw new IllegalStateException("Pathfinder returned null");
+            }
+        }
+        return new long[] { expansions, System.nanoTime() - start };
+    }
+
+    private static int[] createQueries(CollisionGrid grid, Random random) {
+        int[] queries = new int[QUERIES * 4];
+        for (int i = 0; i < queries.length; i += 4) {
+            TilePosition start = randomWalkableTile(grid, random);
+            TilePosition target = randomWalkableTile(grid, random);
+            queries[i] = start.x;
+            queries[i + 1] = start.y;
+            queries[i + 2] = target.x;
+            queries[i + 3] = target.y;
+        }
+        return queries;
+    }
+
+    private static TilePosition randomWalkableTile(CollisionGrid grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (!grid.getCollisionByXandY(x, y)) {
+                return new TilePosition(x, y);
+            }
+        }
+    }
+
+    // Open field with scattered rectangular obstacles, roughly like the shipped map
+    private static class GeneratedGrid implements CollisionGrid {
+        private final int size;
+        private final boolean[] blocked;
+        private Reachability reachability;
+
+        private GeneratedGrid(int size) {
+            this.size = size;
+            this.blocked = new boolean[size * size];
+        }
+
+        static GeneratedGrid create(int size, Random random) {
+            GeneratedGrid grid = new GeneratedGrid(size);
+            int obstacles = size * size / 40;
+            for (int i = 0; i < obstacles; i++) {
+                int x = random.nextInt(size);
+                int y = random.nextInt(size);
+                int width = 1 + random.nextInt(6);
+                int height = 1 + random.nextInt(6);
+                for (int dx = 0; dx < width && x + dx < size; dx++) {
+                    for (int dy = 0; dy < height && y + dy < size; dy++) {
+                        grid.blocked[(x + dx) + (y + dy) * size] = true;
+                    }
+                }
+            }
+            grid.reachability = new Reachability(grid);
+            return grid;
+        }
+
+        @Override
+        public int getWidth() {
+            return size;
+        }
+
+        @Override
+        public int getHeight() {
+            return size;
+        }
+
+        @Override
+        public boolean getCollisionByXandY(int x, int y) {
+            return x < 0 || y < 0 || x >= size || y >= size || blocked[x + y * size];
+        }
+
+        @Override
+        public Reachability getReachability() {
+            return reachability;
+        }
+    }
+}
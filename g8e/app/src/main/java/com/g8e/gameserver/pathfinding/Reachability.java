@@ -0,0 +1,135 @@
+package com.g8e.gameserver.pathfinding;
+
+import com.g8e.gameserver.tile.TilePosition;
+
+/**
+ * Connected areas of the map and the closest walkable tile of every tile,
+ * computed once per collision version. Diagonal steps need both neighbouring
+ * straight tiles free, so two tiles are connected exactly when a path of
+ * straight steps joins them.
+ *
+ * Immutable once built.
+ */
+public class Reachability {
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1, 1, -1, 1, -1 };
+    private static final int[] DIRECTION_Y = { 1, 0, -1, 0, 1, 1, -1, -1 };
+
+    private final int width;
+    private final int height;
+    // Component of every walkable tile, -1 for blocked tiles
+    private final int[] components;
+    // Tile index of the closest walkable tile, -1 if nothing is walkable
+    private final int[] closestWalkable;
+    private int componentCount = 0;
+
+    public Reachability(CollisionGrid grid) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.components = new int[width * height];
+        this.closestWalkable = new int[width * height];
+
+        int[] queue = new int[width * height];
+        labelComponents(grid, queue);
+        fillClosestWalkable(queue);
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getComponent(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        return components[x + y * width];
+    }
+
+    // False only when both tiles are walkable and in different components,
+    // a blocked start is left to the search
+    public boolean isConnected(int startX, int startY, int targetX, int targetY) {
+        int start = getComponent(startX, startY);
+        int target = getComponent(targetX, targetY);
+        return start == -1 || target == -1 || start == target;
+    }
+
+    // Coordinates outside of the map are clamped onto its edge first
+    public TilePosition getClosestWalkableTile(int x, int y) {
+        x = Math.max(0, Math.min(width - 1, x));
+        y = Math.max(0, Math.min(height - 1, y));
+
+        int tile = closestWalkable[x + y * width];
+        if (tile == -1) {
+            return null;
+        }
+        return new TilePosition(tile % width, tile / width);
+    }
+
+    private void labelComponents(CollisionGrid grid, int[] queue) {
+        for (int tile = 0; tile < components.length; tile++) {
+            components[tile] = grid.getCollisionByXandY(tile % width, tile / width) ? -1 : Integer.MAX_VALUE;
+        }
+
+        for (int seed = 0; seed < components.length; seed++) {
+            if (components[seed] != Integer.MAX_VALUE) {
+                continue;
+            }
+
+            int component = componentCount++;
+            int head = 0;
+            int tail = 0;
+            components[seed] = component;
+            queue[tail++] = seed;
+
+            while (head < tail) {
+                int tile = queue[head++];
+                int x = tile % width;
+                int y = tile / width;
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + DIRECTION_X[d];
+                    int ny = y + DIRECTION_Y[d];
+                    if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                        continue;
+                    }
+                    int neighbor = nx + ny * width;
+                    if (components[neighbor] == Integer.MAX_VALUE) {
+                        components[neighbor] = component;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+    }
+
+    // Breadth first from all walkable tiles at once, so every blocked tile
+    // is reached first by a walkable tile the fewest steps away
+    private void fillClosestWalkable(int[] queue) {
+        int head = 0;
+        int tail = 0;
+        for (int tile = 0; tile < components.length; tile++) {
+            if (components[tile] != -1) {
+                closestWalkable[tile] = tile;
+                queue[tail++] = tile;
+            } else {
+                closestWalkable[tile] = -1;
+            }
+        }
+
+        while (head < tail) {
+            int tile = queue[head++];
+            int x = tile % width;
+            int y = tile / width;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nx = x + DIRECTION_X[d];
+                int ny = y + DIRECTION_Y[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                int neighbor = nx + ny * width;
+                if (closestWalkable[neighbor] == -1) {
+                    closestWalkable[neighbor] = closestWalkable[tile];
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+}
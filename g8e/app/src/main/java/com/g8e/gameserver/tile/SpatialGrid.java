@@ -0,0 +1,155 @@
+package com.g8e.gameserver.tile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.g8e.gameserver.models.entities.Entity;
+import com.g8e.gameserver.models.objects.Item;
+
+/**
+ * Uniform grid over the map so that tile and area lookups only look at the
+ * few cells around the position instead of every entity in the world.
+ *
+ * Entities have to be moved through {@link #move(Entity, int, int)} whenever
+ * their position changes, Entity.moveOneTile and Entity.move take care of it.
+ * Positions outside of the map are not indexed.
+ *
+ * The cells are not synchronized. Every change has to happen on the tick
+ * thread, joins and disconnects are queued and applied in the JOINS phase for
+ * that reason, and the grid is only filled by the World constructor before
+ * the tick thread starts.
+ */
+public class SpatialGrid {
+    private static final int CELL_SIZE = 8;
+
+    private final int width;
+    private final int height;
+    private final int cellsPerRow;
+    private final List<Entity>[] entityCells;
+    private final List<Item>[] itemCells;
+
+    @SuppressWarnings("unchecked")
+    public SpatialGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cellsPerRow = (width + CELL_SIZE - 1) / CELL_SIZE;
+        int cellCount = cellsPerRow * ((height + CELL_SIZE - 1) / CELL_SIZE);
+
+        this.entityCells = (List<Entity>[]) new List<?>[cellCount];
+        this.itemCells = (List<Item>[]) new List<?>[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            entityCells[i] = new ArrayList<>();
+            itemCells[i] = new ArrayList<>();
+        }
+    }
+
+    public void add(Entity entity) {
+        int cell = getCell(entity.worldX, entity.worldY);
+        if (cell != -1) {
+            entityCells[cell].add(entity);
+        }
+    }
+
+    public void remove(Entity entity) {
+        int cell = getCell(entity.worldX, entity.worldY);
+        if (cell != -1) {
+            entityCells[cell].remove(entity);
+        }
+    }
+
+    public void move(Entity entity, int fromX, int fromY) {
+        int from = getCell(fromX, fromY);
+        int to = getCell(entity.worldX, entity.worldY);
+        if (from == to) {
+            return;
+        }
+
+        if (from != -1) {
+            entityCells[from].remove(entity);
+        }
+        if (to != -1) {
+            entityCells[to].add(entity);
+        }
+    }
+
+    public void addItem(Item item) {
+        int cell = getItemCell(item);
+        if (cell != -1) {
+            itemCells[cell].add(item);
+        }
+    }
+
+    public void removeItem(Item item) {
+        int cell = getItemCell(item);
+        if (cell != -1) {
+            itemCells[cell].remove(item);
+        }
+    }
+
+    // Dying entities do not occupy their tile
+    public Entity getEntityAt(int x, int y) {
+        int cell = getCell(x, y);
+        if (cell == -1) {
+            return null;
+        }
+
+        for (Entity entity : entityCells[cell]) {
+            if (!entity.isDying && entity.worldX == x && entity.worldY == y) {
+                return entity;
+            }
+        }
+
+        return null;
+    }
+
+    // Radius is in tiles and diagonal steps count as one, like movement does
+    public List<Entity> getEntitiesInRadius(int x, int y, int radius) {
+        List<Entity> result = new ArrayList<>();
+        int minCellX = Math.max(0, x - radius) / CELL_SIZE;
+        int maxCellX = Math.min(width - 1, x + radius) / CELL_SIZE;
+        int minCellY = Math.max(0, y - radius) / CELL_SIZE;
+        int maxCellY = Math.min(height - 1, y + radius) / CELL_SIZE;
+
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (Entity entity : entityCells[cellX + cellY * cellsPerRow]) {
+                    if (Math.abs(entity.worldX - x) <= radius && Math.abs(entity.worldY - y) <= radius) {
+                        result.add(entity);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public List<Item> getItemsAt(int x, int y) {
+        List<Item> result = new ArrayList<>();
+        int cell = getCell(x, y);
+        if (cell == -1) {
+            return result;
+        }
+
+        for (Item item : itemCells[cell]) {
+            if (item.getWorldX() == x && item.getWorldY() == y) {
+                result.add(item);
+            }
+        }
+
+        return result;
+    }
+
+    private int getItemCell(Item item) {
+        if (item.getWorldX() == null || item.getWorldY() == null) {
+            return -1;
+        }
+        return getCell(item.getWorldX(), item.getWorldY());
+    }
+
+    private int getCell(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        return x / CELL_SIZE + (y / CELL_SIZE) * cellsPerRow;
+    }
+}
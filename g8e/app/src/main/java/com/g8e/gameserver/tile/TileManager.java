@@ -6,9 +6,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 
 import com.g8e.gameserver.World;
+import com.g8e.gameserver.pathfinding.CollisionGrid;
+import com.g8e.gameserver.pathfinding.CollisionSnapshot;
+import com.g8e.gameserver.pathfinding.Reachability;
+import com.g8e.gameserver.util.Metrics;
 import com.g8e.util.Logger;
 
-public final class TileManager {
+public final class TileManager implements CollisionGrid {
 
     final private World world;
     public Tile[] tile;
@@ -18,6 +22,13 @@ public final class TileManager {
     public int[][] mapTileNumLayer4;
     public int chunkSize = 20;
 
+    // One bit per tile, rows of world.maxWorldCol bits packed into longs
+    private long[] collisionBits;
+    private int collisionWordsPerRow;
+    private int collisionVersion = 0;
+    private Reachability reachability;
+    private int reachabilityVersion;
+
     public TileManager(World world) {
         this.world = world;
         tile = new Tile[8000];
@@ -33,68 +44,75 @@ public final class TileManager {
         loadMap("/data/map/map_layer2.csv", 2); // Load layer 2 map
         loadMap("/data/map/map_objects.csv", 3); // Load layer 2 map
 
+        rebuildCollisionMap();
     }
 
-    public TilePosition getClosestWalkableTile(int x, int y) {
-        int distance = 0;
+    @Override
+    public int getWidth() {
+        return world.maxWorldCol;
+    }
 
-        while (true) {
-            // Search in increasing distance from the target tile
-            for (int i = -distance; i <= distance; i++) {
-                for (int j = -distance; j <= distance; j++) {
-                    // Only check the outermost tiles of the current square (Manhattan distance)
-                    if (i == -distance || i == distance || j == -distance || j == distance) {
-                        int newX = x + i;
-                        int newY = y + j;
+    @Override
+    public int getHeight() {
+        return world.maxWorldRow;
+    }
 
-                        // Check bounds to avoid IndexOutOfBoundsException
-                        if (newX >= 0 && newX < world.maxWorldCol && newY >= 0 && newY < world.maxWorldRow) {
-                            if (!getCollisionByXandY(newX, newY)) {
-                                return new TilePosition(newX, newY);
-                            }
-                        }
-                    }
-                }
-            }
-            // If no walkable tile found, expand the search area by increasing the distance
-            distance++;
-        }
+    public int getChunksPerRow() {
+        return (world.maxWorldCol + chunkSize - 1) / chunkSize;
+    }
 
+    public int getChunksPerColumn() {
+        return (world.maxWorldRow + chunkSize - 1) / chunkSize;
     }
 
     public int getChunkByWorldXandY(int worldX, int worldY) {
-        try {
-            // world is divided into chunks of 10x10 tiles
-            // starting from top left corner of the world
-            int chunkX = worldX / chunkSize;
-            int chunkY = worldY / chunkSize;
-            return chunkX + chunkY * (world.maxWorldCol / chunkSize);
-        } catch (Exception e) {
-            Logger.printError(e.getMessage());
+        if (worldX < 0 || worldY < 0 || worldX >= world.maxWorldCol || worldY >= world.maxWorldRow) {
+            return -1;
         }
-        return -1;
+
+        // world is divided into chunks of chunkSize x chunkSize tiles
+        // starting from top left corner of the world
+        int chunkX = worldX / chunkSize;
+        int chunkY = worldY / chunkSize;
+        return chunkX + chunkY * getChunksPerRow();
     }
 
+    // Out of bounds neighbors are -1
     public int[] getNeighborChunks(int chunk) {
-        try {
-            int[] neighbors = new int[8];
-            int chunkX = chunk % (world.maxWorldCol / chunkSize);
-            int chunkY = chunk / (world.maxWorldCol / chunkSize);
-
-            neighbors[0] = chunkX - 1 + (chunkY - 1) * (world.maxWorldCol / chunkSize);
-            neighbors[1] = chunkX + (chunkY - 1) * (world.maxWorldCol / chunkSize);
-            neighbors[2] = chunkX + 1 + (chunkY - 1) * (world.maxWorldCol / chunkSize);
-            neighbors[3] = chunkX - 1 + chunkY * (world.maxWorldCol / chunkSize);
-            neighbors[4] = chunkX + 1 + chunkY * (world.maxWorldCol / chunkSize);
-            neighbors[5] = chunkX - 1 + (chunkY + 1) * (world.maxWorldCol / chunkSize);
-            neighbors[6] = chunkX + (chunkY + 1) * (world.maxWorldCol / chunkSize);
-            neighbors[7] = chunkX + 1 + (chunkY + 1) * (world.maxWorldCol / chunkSize);
-
-            return neighbors;
-        } catch (Exception e) {
-            Logger.printError(e.getMessage());
+        int[] neighbors = new int[8];
+        int chunksPerRow = getChunksPerRow();
+        int chunkX = chunk % chunksPerRow;
+        int chunkY = chunk / chunksPerRow;
+
+        int i = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (dx == 0 && dy == 0) {
+                    continue;
+                }
+
+                int nx = chunkX + dx;
+                int ny = chunkY + dy;
+                if (nx < 0 || ny < 0 || nx >= chunksPerRow || ny >= getChunksPerColumn()) {
+                    neighbors[i++] = -1;
+                } else {
+                    neighbors[i++] = nx + ny * chunksPerRow;
+                }
+            }
         }
-        return null;
+
+        return neighbors;
+    }
+
+    // True if a client standing in chunk "from" can see chunk "chunk"
+    public boolean isChunkVisibleFrom(int chunk, int from) {
+        if (chunk < 0 || from < 0) {
+            return false;
+        }
+
+        int chunksPerRow = getChunksPerRow();
+        return Math.abs(chunk % chunksPerRow - from % chunksPerRow) <= 1
+                && Math.abs(chunk / chunksPerRow - from / chunksPerRow) <= 1;
     }
 
     // Is this even needed anymore?
@@ -112,25 +130,91 @@ public final class TileManager {
         return null;
     }
 
+    @Override
     public boolean getCollisionByXandY(int x, int y) {
-
-        if (x < 0 || y < 0
-                || x >= mapTileNumLayer1.length
-                || y >= mapTileNumLayer1[0].length) {
+        if (x < 0 || y < 0 || x >= world.maxWorldCol || y >= world.maxWorldRow) {
             return true;
         }
 
-        int[] layers = {
-                mapTileNumLayer3[x][y],
-                mapTileNumLayer2[x][y],
-                mapTileNumLayer1[x][y]
-        };
+        return (collisionBits[y * collisionWordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    // Bumped whenever the collision of any tile changes
+    public int getCollisionVersion() {
+        return collisionVersion;
+    }
+
+    // Immutable copy of the collision map for searches off the tick thread
+    public CollisionSnapshot createCollisionSnapshot() {
+        return new CollisionSnapshot(world.maxWorldCol, world.maxWorldRow, collisionWordsPerRow,
+                collisionBits.clone(), collisionVersion, getReachability());
+    }
+
+    // Rebuilt on first use after the collision map changed
+    @Override
+    public Reachability getReachability() {
+        if (reachability == null || reachabilityVersion != collisionVersion) {
+            reachability = new Reachability(this);
+            reachabilityVersion = collisionVersion;
+            Metrics.setGauge("reachability.components", reachability.getComponentCount());
+        }
+        return reachability;
+    }
+
+    // Changes a tile at runtime and keeps the collision map in sync
+    public void setTileNum(int layer, int x, int y, int tileIndex) {
+        switch (layer) {
+            case 1 -> mapTileNumLayer1[x][y] = tileIndex;
+            case 2 -> mapTileNumLayer2[x][y] = tileIndex;
+            case 3 -> mapTileNumLayer3[x][y] = tileIndex;
+            case 4 -> mapTileNumLayer4[x][y] = tileIndex;
+            default -> {
+                return;
+            }
+        }
+
+        updateCollision(x, y);
+    }
 
-        for (int tileIndex : layers) {
+    public void rebuildCollisionMap() {
+        collisionWordsPerRow = (world.maxWorldCol + 63) >>> 6;
+        collisionBits = new long[collisionWordsPerRow * world.maxWorldRow];
+
+        for (int y = 0; y < world.maxWorldRow; y++) {
+            for (int x = 0; x < world.maxWorldCol; x++) {
+                if (computeCollision(x, y)) {
+                    collisionBits[y * collisionWordsPerRow + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        collisionVersion++;
+        getReachability();
+    }
+
+    private void updateCollision(int x, int y) {
+        int word = y * collisionWordsPerRow + (x >>> 6);
+        long before = collisionBits[word];
+        if (computeCollision(x, y)) {
+            collisionBits[word] |= 1L << x;
+        } else {
+            collisionBits[word] &= ~(1L << x);
+        }
+
+        if (collisionBits[word] != before) {
+            collisionVersion++;
+        }
+    }
+
+    // The topmost layer with a tile decides, layer 4 is decoration only
+    private boolean computeCollision(int x, int y) {
+        int[][][] layers = { mapTileNumLayer3, mapTileNumLayer2, mapTileNumLayer1 };
+
+        for (int[][] layer : layers) {
+            int tileIndex = layer[x][y];
             if (tileIndex == -1)
                 continue;
 
-            return tile[tileIndex].collision;
+            return tile[tileIndex] == null || tile[tileIndex].collision;
         }
 
         return false;
@@ -148,6 +232,9 @@ public final class TileManager {
     public void setup(int index, boolean collision) {
         try {
             tile[index] = new Tile(collision, index);
+            if (collisionBits != null) {
+                rebuildCollisionMap();
+            }
         } catch (Exception e) {
             Logger.printError(e.getMessage());
         }
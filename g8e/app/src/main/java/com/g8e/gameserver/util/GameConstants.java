@@ -0,0 +1,62 @@
+package com.g8e.gameserver.util;
+
+import com.g8e.gameserver.enums.TickOverrunPolicy;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+public class GameConstants {
+    static Dotenv dotenv = Dotenv.load();
+
+    // Tick scheduling
+    public static final int TICK_RATE_MS = Integer.parseInt(dotenv.get("TICK_RATE_MS", "600"));
+    public static final TickOverrunPolicy TICK_OVERRUN_POLICY = TickOverrunPolicy
+            .valueOf(dotenv.get("TICK_OVERRUN_POLICY", "SKIP").toUpperCase());
+    public static final int TICK_MAX_CATCH_UP = Integer.parseInt(dotenv.get("TICK_MAX_CATCH_UP", "5"));
+
+    // Tick profiling
+    public static final int SLOW_TICK_MS = Integer.parseInt(dotenv.get("SLOW_TICK_MS", "300"));
+    public static final int SLOW_TICK_HISTORY = Integer.parseInt(dotenv.get("SLOW_TICK_HISTORY", "20"));
+
+    // Pathfinding
+    public static final String PATHFINDER = dotenv.get("PATHFINDER", "astar");
+    public static final int PATH_CACHE_SIZE = Integer.parseInt(dotenv.get("PATH_CACHE_SIZE", "2048"));
+    // Paths longer than this many tiles are planned over chunk entrances first
+    public static final int HIERARCHICAL_PATH_RANGE = Integer
+            .parseInt(dotenv.get("HIERARCHICAL_PATH_RANGE", "40"));
+    // Time the tick thread may spend on queued path requests per tick
+    public static final int PATH_BUDGET_MS = Integer.parseInt(dotenv.get("PATH_BUDGET_MS", "50"));
+    // Above zero, queued requests are searched on worker threads instead
+    public static final int PATH_WORKER_THREADS = Integer.parseInt(dotenv.get("PATH_WORKER_THREADS", "0"));
+
+    // Network
+    public static final int STREAM_COMPRESSION_LEVEL = Integer
+            .parseInt(dotenv.get("STREAM_COMPRESSION_LEVEL", "6"));
+    // Recorded JSON states for building the compression dictionary, off when empty
+    public static final String STATE_SAMPLE_DIR = dotenv.get("STATE_SAMPLE_DIR", "");
+    public static final int STATE_SAMPLE_EVERY = Integer.parseInt(dotenv.get("STATE_SAMPLE_EVERY", "10"));
+    public static final int STATE_SAMPLE_LIMIT = Integer.parseInt(dotenv.get("STATE_SAMPLE_LIMIT", "2000"));
+    // Frame compression, "adaptive" picks the level per frame, "fixed" always uses COMPRESSION_LEVEL
+    public static final String COMPRESSION_POLICY = dotenv.get("COMPRESSION_POLICY", "adaptive");
+    public static final int COMPRESSION_LEVEL = Integer.parseInt(dotenv.get("COMPRESSION_LEVEL", "9"));
+    // Frames shorter than this are sent uncompressed
+    public static final int COMPRESSION_RAW_THRESHOLD = Integer
+            .parseInt(dotenv.get("COMPRESSION_RAW_THRESHOLD", "96"));
+    public static final int COMPRESSION_LARGE_PAYLOAD = Integer
+            .parseInt(dotenv.get("COMPRESSION_LARGE_PAYLOAD", "16384"));
+    // Below these shares of the tick left, cheaper levels are used
+    public static final int COMPRESSION_LOW_HEADROOM_PERCENT = Integer
+            .parseInt(dotenv.get("COMPRESSION_LOW_HEADROOM_PERCENT", "50"));
+    public static final int COMPRESSION_CRITICAL_HEADROOM_PERCENT = Integer
+            .parseInt(dotenv.get("COMPRESSION_CRITICAL_HEADROOM_PERCENT", "20"));
+
+    // Player persistence
+    public static final int PLAYER_FLUSH_INTERVAL_MS = Integer
+            .parseInt(dotenv.get("PLAYER_FLUSH_INTERVAL_MS", "5000"));
+    // How long a reconnect waits for the logout of the previous session
+    public static final int RECONNECT_WAIT_MS = Integer.parseInt(dotenv.get("RECONNECT_WAIT_MS", "10000"));
+
+    // Flow fields for goals several NPCs chase at once
+    public static final int FLOW_FIELD_RADIUS = Integer.parseInt(dotenv.get("FLOW_FIELD_RADIUS", "16"));
+    public static final int FLOW_FIELD_MIN_USERS = Integer.parseInt(dotenv.get("FLOW_FIELD_MIN_USERS", "2"));
+    public static final int FLOW_FIELD_TTL_TICKS = Integer.parseInt(dotenv.get("FLOW_FIELD_TTL_TICKS", "5"));
+}
@@ -0,0 +1,50 @@
+package com.g8e.gameserver.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Metrics {
+
+    // Gauges hold the latest value, counters only ever grow
+    private static final Map<String, AtomicLong> GAUGES = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    public static void setGauge(String name, long value) {
+        GAUGES.computeIfAbsent(name, key -> new AtomicLong()).set(value);
+    }
+
+    public static long getGauge(String name) {
+        AtomicLong gauge = GAUGES.get(name);
+        return gauge != null ? gauge.get() : 0;
+    }
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long amount) {
+        COUNTERS.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    public static long getCounter(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    public static String dump() {
+        Map<String, Long> sorted = new TreeMap<>();
+        GAUGES.forEach((name, value) -> sorted.put(name, value.get()));
+        COUNTERS.forEach((name, value) -> sorted.put(name, value.sum()));
+
+        StringBuilder builder = new StringBuilder();
+        sorted.forEach((name, value) -> builder.append(name).append(" = ").append(value).append('\n'));
+        return builder.toString();
+    }
+
+    // Prevent instantiation
+    private Metrics() {
+    }
+}
@@ -0,0 +1,188 @@
+package com.g8e.gameserver.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import com.g8e.gameserver.enums.TickPhase;
+import com.g8e.util.Logger;
+
+/**
+ * Splits every tick's time and allocations into phases. Time is charged to
+ * the phase that is current, so a phase entered inside another one (encoding
+ * while building the state) is not counted twice.
+ *
+ * Only the tick thread is profiled, calls from other threads are ignored.
+ */
+public class TickProfiler {
+    private static final TickPhase[] PHASES = TickPhase.values();
+
+    private final long slowTickNanos;
+    private final TickRecord[] history;
+    private final LatencyHistogram[] phaseHistograms = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram tickHistogram = new LatencyHistogram();
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    private Thread tickThread;
+    private TickRecord current;
+    private int historyIndex = 0;
+    private int recorded = 0;
+
+    private TickPhase currentPhase;
+    private long lastSwitchNanos;
+    private long lastSwitchBytes;
+
+    private static class TickRecord {
+        long tickNumber;
+        long totalNanos;
+        long totalBytes;
+        final long[] phaseNanos = new long[PHASES.length];
+        final long[] phaseBytes = new long[PHASES.length];
+
+        void reset(long tickNumber) {
+            this.tickNumber = tickNumber;
+            totalNanos = 0;
+            totalBytes = 0;
+            Arrays.fill(phaseNanos, 0);
+            Arrays.fill(phaseBytes, 0);
+        }
+    }
+
+    public TickProfiler(long slowTickMillis, int historySize) {
+        this.slowTickNanos = slowTickMillis * 1_000_000;
+        this.history = new TickRecord[Math.max(1, historySize)];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = new TickRecord();
+        }
+        for (int i = 0; i < phaseHistograms.length; i++) {
+            phaseHistograms[i] = new LatencyHistogram();
+        }
+
+        com.sun.management.ThreadMXBean bean = null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            bean = sunBean;
+        }
+        this.threadMXBean = bean;
+    }
+
+    public void beginTick(long tickNumber) {
+        tickThread = Thread.currentThread();
+        current = history[historyIndex];
+        current.reset(tickNumber);
+        currentPhase = null;
+        lastSwitchNanos = System.nanoTime();
+        lastSwitchBytes = allocatedBytes();
+        current.totalNanos = lastSwitchNanos;
+        current.totalBytes = lastSwitchBytes;
+    }
+
+    // Returns the phase to pass back to exit when the phase is done
+    public TickPhase enter(TickPhase phase) {
+        if (!isProfiling()) {
+            return null;
+        }
+
+        TickPhase previous = currentPhase;
+        charge();
+        currentPhase = phase;
+        return previous;
+    }
+
+    public void exit(TickPhase previous) {
+        if (!isProfiling()) {
+            return;
+        }
+
+        charge();
+        currentPhase = previous;
+    }
+
+    public synchronized void endTick() {
+        if (current == null) {
+            return;
+        }
+
+        charge();
+        current.totalNanos = System.nanoTime() - current.totalNanos;
+        current.totalBytes = allocatedBytes() - current.totalBytes;
+
+        tickHistogram.record(current.totalNanos / 1000);
+        for (TickPhase phase : PHASES) {
+            LatencyHistogram histogram = phaseHistograms[phase.ordinal()];
+            histogram.record(current.phaseNanos[phase.ordinal()] / 1000);
+
+            String name = "tick.phase." + phase.name().toLowerCase();
+            Metrics.setGauge(name + ".p50Micros", histogram.getPercentile(50));
+            Metrics.setGauge(name + ".p99Micros", histogram.getPercentile(99));
+            Metrics.setGauge(name + ".maxMicros", histogram.getMax());
+            Metrics.setGauge(name + ".allocatedBytes", current.phaseBytes[phase.ordinal()]);
+        }
+        Metrics.setGauge("tick.allocatedBytes", current.totalBytes);
+
+        TickRecord finished = current;
+        current = null;
+        tickThread = null;
+        historyIndex = (historyIndex + 1) % history.length;
+        recorded = Math.min(recorded + 1, history.length);
+
+        if (finished.totalNanos > slowTickNanos) {
+            Logger.printWarning("Slow tick " + finished.tickNumber + " took " + finished.totalNanos / 1_000_000
+                    + " ms, last " + recorded + " ticks:\n" + dumpHistory());
+        }
+    }
+
+    public synchronized String summary() {
+        StringBuilder builder = new StringBuilder();
+        appendSummary(builder, "tick", tickHistogram);
+        for (TickPhase phase : PHASES) {
+            appendSummary(builder, phase.name().toLowerCase(), phaseHistograms[phase.ordinal()]);
+        }
+        return builder.toString();
+    }
+
+    private String dumpHistory() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = recorded; i > 0; i--) {
+            TickRecord record = history[(historyIndex - i + history.length) % history.length];
+            builder.append("  tick ").append(record.tickNumber)
+                    .append(": ").append(record.totalNanos / 1000).append(" us, ")
+                    .append(record.totalBytes).append(" B");
+            for (TickPhase phase : PHASES) {
+                builder.append(" | ").append(phase.name().toLowerCase()).append(' ')
+                        .append(record.phaseNanos[phase.ordinal()] / 1000).append(" us ")
+                        .append(record.phaseBytes[phase.ordinal()]).append(" B");
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static void appendSummary(StringBuilder builder, String name, LatencyHistogram histogram) {
+        builder.append(name)
+                .append(": p50=").append(histogram.getPercentile(50))
+                .append(" us, p99=").append(histogram.getPercentile(99))
+                .append(" us, max=").append(histogram.getMax())
+                .append(" us, count=").append(histogram.getCount())
+                .append('\n');
+    }
+
+    private boolean isProfiling() {
+        return current != null && Thread.currentThread() == tickThread;
+    }
+
+    private void charge() {
+        long now = System.nanoTime();
+        long bytes = allocatedBytes();
+        if (currentPhase != null) {
+            current.phaseNanos[currentPhase.ordinal()] += now - lastSwitchNanos;
+            current.phaseBytes[currentPhase.ordinal()] += bytes - lastSwitchBytes;
+        }
+        lastSwitchNanos = now;
+        lastSwitchBytes = bytes;
+    }
+
+    private long allocatedBytes() {
+        return threadMXBean != null ? threadMXBean.getCurrentThreadAllocatedBytes() : 0;
+    }
+}
@@ -0,0 +1,364 @@
+package com.g8e.gameserver.network.encoding;
+
+import static com.g8e.gameserver.network.encoding.BinaryGameStateEncoder.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.g8e.gameserver.enums.Direction;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Reference decoder for the BinaryGameStateEncoder format. Produces the same
+ * JSON tree Gson makes of the game state, so a decoded frame can be compared
+ * with the state it was encoded from. Handles are resolved to IDs the way the
+ * client does it, from the IDs seen when entities were introduced.
+ */
+public class BinaryGameStateDecoder {
+    private final Map<Integer, String> entityIDs = new HashMap<>();
+
+    private byte[] data;
+    private int position;
+
+    // For entities the client already knows from earlier frames
+    public void rememberEntity(int handle, String entityID) {
+        entityIDs.put(handle, entityID);
+    }
+
+    public JsonObject decode(byte[] frame) {
+        data = frame;
+        position = 0;
+
+        int version = readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown version " + version);
+        }
+
+        int sections = readVarInt();
+        JsonObject state = new JsonObject();
+
+        // Entities are introduced after the events that refer to them, so the
+        // events are resolved once the whole frame has been read
+        int[][] attackEvents = null;
+        int[][] talkEvents = null;
+        int[][] tradeEvents = null;
+        JsonArray soundEvents = null;
+        int[] soundEntities = null;
+
+        if ((sections & SECTION_ATTACK_EVENTS) != 0) {
+            attackEvents = new int[readVarInt()][];
+            for (int i = 0; i < attackEvents.length; i++) {
+                attackEvents[i] = new int[] { readVarInt(), readVarInt() };
+            }
+        }
+
+        if ((sections & SECTION_TALK_EVENTS) != 0) {
+            talkEvents = new int[readVarInt()][];
+            for (int i = 0; i < talkEvents.length; i++) {
+                talkEvents[i] = new int[] { readVarInt(), readVarInt(), readVarInt() };
+            }
+        }
+
+        if ((sections & SECTION_TRADE_EVENTS) != 0) {
+            tradeEvents = new int[readVarInt()][];
+            for (int i = 0; i < tradeEvents.length; i++) {
+                tradeEvents[i] = new int[] { readVarInt(), readVarInt(), readVarInt() };
+            }
+        }
+
+        if ((sections & SECTION_SOUND_EVENTS) != 0) {
+            int count = readVarInt();
+            soundEvents = new JsonArray();
+            soundEntities = new int[count];
+            for (int i = 0; i < count; i++) {
+                JsonObject event = new JsonObject();
+                event.addProperty("soundName", readString());
+                int flags = readByte();
+                event.addProperty("isSfx", (flags & 1) != 0);
+                event.addProperty("shouldInterrupt", (flags & 2) != 0);
+                event.addProperty("isGlobal", (flags & 4) != 0);
+                soundEntities[i] = readVarInt();
+                soundEvents.add(event);
+            }
+        }
+
+        if ((sections & SECTION_PLAYERS) != 0) {
+            JsonArray players = new JsonArray();
+            for (int i = readVarInt(); i > 0; i--) {
+                players.add(readPlayer());
+            }
+            state.add("players", players);
+        }
+
+        if ((sections & SECTION_NPCS) != 0) {
+            JsonArray npcs = new JsonArray();
+            for (int i = readVarInt(); i > 0; i--) {
+                npcs.add(readNpc());
+            }
+            state.add("npcs", npcs);
+        }
+
+        if ((sections & SECTION_CHAT_MESSAGES) != 0) {
+            JsonArray chatMessages = new JsonArray();
+            for (int i = readVarInt(); i > 0; i--) {
+                JsonObject message = new JsonObject();
+                message.addProperty("senderName", readString());
+                message.addProperty("message", readString());
+                message.addProperty("timeSent", readVarLong());
+                message.addProperty("isGlobal", readBoolean());
+                chatMessages.add(message);
+            }
+            state.add("chatMessages", chatMessages);
+        }
+
+        if ((sections & SECTION_PLAYER_ID) != 0) {
+            String playerID = readString();
+            entityIDs.put(readVarInt(), playerID);
+            state.addProperty("playerID", playerID);
+        }
+
+        if ((sections & SECTION_ITEMS) != 0) {
+            JsonArray items = new JsonArray();
+            for (int i = readVarInt(); i > 0; i--) {
+                items.add(readItem());
+            }
+            state.add("items", items);
+        }
+
+        if ((sections & SECTION_OUT_OF_RANGE_NPCS) != 0) {
+            state.add("outOfRangeNpcs", readHandles());
+        }
+
+        if ((sections & SECTION_ONLINE_PLAYERS) != 0) {
+            state.add("onlinePlayers", readHandles());
+        }
+
+        if (position != data.length) {
+            throw new IllegalArgumentException((data.length - position) + " bytes left after the last section");
+        }
+
+        if (attackEvents != null) {
+            JsonArray events = new JsonArray();
+            for (int[] event : attackEvents) {
+                JsonObject object = new JsonObject();
+                addID(object, "attackerID", event[0]);
+                addID(object, "targetID", event[1]);
+                events.add(object);
+            }
+            state.add("tickAttackEvents", events);
+        }
+
+        if (talkEvents != null) {
+            state.add("tickTalkEvents", interactionEvents(talkEvents, "talkerID"));
+        }
+
+        if (tradeEvents != null) {
+            state.add("tickTradeEvents", interactionEvents(tradeEvents, "traderID"));
+        }
+
+        if (soundEvents != null) {
+            for (int i = 0; i < soundEntities.length; i++) {
+                addID(soundEvents.get(i).getAsJsonObject(), "entityID", soundEntities[i]);
+            }
+            state.add("tickSoundEvents", soundEvents);
+        }
+
+        return state;
+    }
+
+    private JsonObject readPlayer() {
+        int handle = readVarInt();
+        int mask = readVarInt();
+        JsonObject player = new JsonObject();
+
+        if ((mask & PLAYER_ENTITY_ID) != 0)
+            entityIDs.put(handle, readString());
+        if ((mask & PLAYER_INVENTORY) != 0)
+            player.add("inventory", readIntArray());
+        if ((mask & PLAYER_INVENTORY_AMOUNTS) != 0)
+            player.add("inventoryAmounts", readIntArray());
+        if ((mask & PLAYER_QUEST_PROGRESS) != 0)
+            player.add("questProgress", readIntArray());
+        if ((mask & PLAYER_INFLUENCE) != 0)
+            player.addProperty("influence", readSignedVarInt());
+        if ((mask & PLAYER_SKIN_COLOR) != 0)
+            player.addProperty("skinColor", readSignedVarInt());
+        if ((mask & PLAYER_HAIR_COLOR) != 0)
+            player.addProperty("hairColor", readSignedVarInt());
+        if ((mask & PLAYER_SHIRT_COLOR) != 0)
+            player.addProperty("shirtColor", readSignedVarInt());
+        if ((mask & PLAYER_PANTS_COLOR) != 0)
+            player.addProperty("pantsColor", readSignedVarInt());
+        if ((mask & PLAYER_USERNAME) != 0)
+            player.addProperty("username", readString());
+        if ((mask & PLAYER_SKILLS) != 0)
+            player.add("skills", readIntArray());
+        if ((mask & PLAYER_CURRENT_HITPOINTS) != 0)
+            player.addProperty("currentHitpoints", readSignedVarInt());
+        if ((mask & PLAYER_IS_IN_COMBAT) != 0)
+            player.addProperty("isInCombat", readBoolean());
+        if ((mask & PLAYER_WEAPON) != 0)
+            player.addProperty("weapon", readSignedVarInt());
+        if ((mask & PLAYER_SHIELD) != 0)
+            player.addProperty("shield", readSignedVarInt());
+        if ((mask & PLAYER_ATTACK_STYLE) != 0)
+            player.addProperty("attackStyle", readString());
+        if ((mask & PLAYER_LAST_DAMAGE_DEALT) != 0)
+            player.addProperty("lastDamageDealt", readSignedVarInt());
+        addID(player, "entityID", handle);
+        if ((mask & PLAYER_WORLD_X) != 0)
+            player.addProperty("worldX", readVarInt());
+        if ((mask & PLAYER_WORLD_Y) != 0)
+            player.addProperty("worldY", readVarInt());
+        if ((mask & PLAYER_LAST_TICK_X) != 0)
+            player.addProperty("lastTickX", readVarInt());
+        if ((mask & PLAYER_LAST_TICK_Y) != 0)
+            player.addProperty("lastTickY", readVarInt());
+        if ((mask & PLAYER_FACING_DIRECTION) != 0)
+            player.addProperty("facingDirection", readDirection());
+        if ((mask & PLAYER_IS_DYING) != 0)
+            player.addProperty("isDying", readBoolean());
+        return player;
+    }
+
+    private JsonObject readNpc() {
+        int handle = readVarInt();
+        int mask = readVarInt();
+        JsonObject npc = new JsonObject();
+
+        if ((mask & NPC_ENTITY_ID) != 0)
+            entityIDs.put(handle, readString());
+        if ((mask & NPC_NPC_INDEX) != 0)
+            npc.addProperty("npcIndex", readVarInt());
+        if ((mask & NPC_CURRENT_HITPOINTS) != 0)
+            npc.addProperty("currentHitpoints", readSignedVarInt());
+        if ((mask & NPC_IS_IN_COMBAT) != 0)
+            npc.addProperty("isInCombat", readBoolean());
+        if ((mask & NPC_LAST_DAMAGE_DEALT) != 0)
+            npc.addProperty("lastDamageDealt", readSignedVarInt());
+        addID(npc, "entityID", handle);
+        if ((mask & NPC_WORLD_X) != 0)
+            npc.addProperty("worldX", readVarInt());
+        if ((mask & NPC_WORLD_Y) != 0)
+            npc.addProperty("worldY", readVarInt());
+        if ((mask & NPC_LAST_TICK_X) != 0)
+            npc.addProperty("lastTickX", readVarInt());
+        if ((mask & NPC_LAST_TICK_Y) != 0)
+            npc.addProperty("lastTickY", readVarInt());
+        if ((mask & NPC_NEXT_TILE_DIRECTION) != 0)
+            npc.addProperty("nextTileDirection", readDirection());
+        if ((mask & NPC_FACING_DIRECTION) != 0)
+            npc.addProperty("facingDirection", readDirection());
+        if ((mask & NPC_IS_DYING) != 0)
+            npc.addProperty("isDying", readBoolean());
+        return npc;
+    }
+
+    private JsonObject readItem() {
+        int handle = readVarInt();
+        int mask = readVarInt();
+        JsonObject item = new JsonObject();
+
+        if ((mask & ITEM_UNIQUE_ID) != 0)
+            entityIDs.put(handle, readString());
+        addID(item, "uniqueID", handle);
+        if ((mask & ITEM_ITEM_ID) != 0)
+            item.addProperty("itemID", readVarInt());
+        if ((mask & ITEM_AMOUNT) != 0)
+            item.addProperty("amount", readVarInt());
+        if ((mask & ITEM_WORLD_X) != 0)
+            item.addProperty("worldX", readVarInt());
+        if ((mask & ITEM_WORLD_Y) != 0)
+            item.addProperty("worldY", readVarInt());
+        if ((mask & ITEM_IS_DELETED) != 0)
+            item.addProperty("isDeleted", readBoolean());
+        return item;
+    }
+
+    private JsonArray interactionEvents(int[][] events, String sourceName) {
+        JsonArray array = new JsonArray();
+        for (int[] event : events) {
+            JsonObject object = new JsonObject();
+            addID(object, sourceName, event[0]);
+            addID(object, "targetID", event[1]);
+            object.addProperty("targetIndex", event[2]);
+            array.add(object);
+        }
+        return array;
+    }
+
+    private JsonArray readHandles() {
+        JsonArray ids = new JsonArray();
+        for (int i = readVarInt(); i > 0; i--) {
+            ids.add(resolve(readVarInt()));
+        }
+        return ids;
+    }
+
+    // Handle 0 stands for a null ID, which Gson leaves out
+    private void addID(JsonObject object, String name, int handle) {
+        if (handle != 0) {
+            object.addProperty(name, resolve(handle));
+        }
+    }
+
+    private String resolve(int handle) {
+        String entityID = entityIDs.get(handle);
+        if (entityID == null) {
+            throw new IllegalArgumentException("Unknown handle " + handle);
+        }
+        return entityID;
+    }
+
+    private JsonArray readIntArray() {
+        JsonArray values = new JsonArray();
+        for (int i = readVarInt(); i > 0; i--) {
+            values.add(readSignedVarInt());
+        }
+        return values;
+    }
+
+    private String readDirection() {
+        return Direction.values()[readByte()].name();
+    }
+
+    private String readString() {
+        int length = readVarInt();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    private int readByte() {
+        if (position >= data.length) {
+            throw new IllegalArgumentException("Frame ends at byte " + position);
+        }
+        return data[position++] & 0xFF;
+    }
+
+    private int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.g8e.gameserver.network.encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.g8e.gameserver.models.ChatMessage;
+import com.g8e.gameserver.models.events.AttackEvent;
+import com.g8e.gameserver.models.events.SoundEvent;
+import com.g8e.gameserver.models.events.TalkEvent;
+import com.g8e.gameserver.models.events.TradeEvent;
+import com.g8e.gameserver.models.objects.Item;
+import com.g8e.gameserver.network.GameState;
+import com.g8e.gameserver.network.compressing.Compress;
+import com.g8e.gameserver.network.dataTransferModels.DTOItem;
+import com.g8e.gameserver.network.dataTransferModels.DTONpc;
+import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+import com.google.gson.Gson;
+
+public class BinaryGameStateEncoderTest {
+    private final Gson gson = new Gson();
+    private final Map<String, Integer> handles = new HashMap<>();
+    private final BinaryGameStateEncoder encoder = new BinaryGameStateEncoder(
+            entityID -> handles.getOrDefault(entityID, 0));
+
+    @Test
+    public void initialStateDecodesToTheSameJson() {
+        List<DTOPlayer> players = List.of(
+                player(1, "{entityID:'player_1',username:'Alice',inventory:[1,-1,300000],inventoryAmounts:[1,0,2],"
+                        + "questProgress:[0,2],influence:-15,skinColor:0,hairColor:3,shirtColor:4,pantsColor:5,"
+                        + "skills:[0,1154,13363],currentHitpoints:10,isInCombat:false,weapon:-1,shield:12,"
+                        + "attackStyle:'aggressive',lastDamageDealt:0,worldX:5000,worldY:0,lastTickX:4999,"
+                        + "lastTickY:0,facingDirection:'DOWN_RIGHT',isDying:false}"),
+                player(2, "{entityID:'player_2',username:'Bjørn ✓',worldX:1,worldY:2}"));
+        List<DTONpc> npcs = List.of(
+                npc(3, "{entityID:'npc_3',npcIndex:0,currentHitpoints:7,isInCombat:true,lastDamageDealt:-1,"
+                        + "worldX:17,worldY:20,lastTickX:16,lastTickY:20,nextTileDirection:'LEFT',"
+                        + "facingDirection:'UP_LEFT',isDying:false}"));
+        List<DTOItem> items = List.of(new DTOItem(item(4, "item_coins_1", 10, 25, 3), true));
+
+        GameState gameState = new GameState(
+                List.of(new AttackEvent("player_1", "npc_3")),
+                List.of(new TalkEvent("player_2", "npc_3", 0)),
+                List.of(new TradeEvent("player_1", "player_2", 3)),
+                List.of(new SoundEvent("hit.ogg", true, false, "npc_3", false),
+                        new SoundEvent("music.ogg", false, true, null, true)),
+                players, npcs,
+                List.of(new ChatMessage("Alice", "<b>hi</b> \"there\" 😀", 1729000000000L, true)),
+                items, "player_1", List.of("player_1", "player_2"));
+        gameState.setOutOfRangeNpcs(List.of("npc_3"));
+
+        assertRoundTrip(gameState, new BinaryGameStateDecoder());
+    }
+
+    @Test
+    public void deltasResolveHandlesOfKnownEntities() {
+        Item coins = item(7, "item_coins_2", 10, 3, 4);
+        GameState gameState = new GameState(null, null, null,
+                List.of(new SoundEvent("step.ogg", true, false, "player_5", false)),
+                List.of(player(5, "{entityID:'player_5',worldX:12,lastTickX:11}")),
+                List.of(npc(6, "{entityID:'npc_6',currentHitpoints:0,isDying:true}")),
+                null, List.of(DTOItem.outOfRange(coins)), null, List.of("player_5"));
+
+        BinaryGameStateDecoder decoder = new BinaryGameStateDecoder();
+        decoder.rememberEntity(5, "player_5");
+        decoder.rememberEntity(6, "npc_6");
+        decoder.rememberEntity(7, "item_coins_2");
+        assertRoundTrip(gameState, decoder);
+    }
+
+    @Test
+    public void deflatedFrameIsSmallerThanDeflatedJson() {
+        // A busy tick: a few players and many NPCs walking
+        List<DTOPlayer> players = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            players.add(player(i, "{entityID:'player_" + i + "',worldX:" + (100 + i) + ",worldY:" + (200 - i)
+                    + ",lastTickX:" + (99 + i) + ",lastTickY:" + (200 - i) + ",facingDirection:'RIGHT'}"));
+        }
+        List<DTONpc> npcs = new ArrayList<>();
+        for (int i = 11; i <= 200; i++) {
+            npcs.add(npc(i, "{entityID:'npc" + (i * 7919) + "',worldX:" + (i % 97) + ",worldY:" + (i % 89)
+                    + ",lastTickX:" + (i % 97 + 1) + ",lastTickY:" + (i % 89) + ",nextTileDirection:'LEFT'}"));
+        }
+        List<String> onlinePlayers = new ArrayList<>();
+        players.forEach(player -> onlinePlayers.add(player.entityID));
+
+        GameState gameState = new GameState(null, null, null, null, players, npcs, null, null, null,
+                onlinePlayers);
+
+        byte[] binary = encoder.encode(gameState);
+        byte[] json = new JsonGameStateEncoder().encode(gameState);
+        int deflatedBinary = Compress.compress(binary).length;
+        int deflatedJson = Compress.compress(json).length;
+
+        assertTrue("binary " + binary.length + " bytes, JSON " + json.length + " bytes",
+                binary.length * 4 < json.length);
+        assertTrue("deflated binary " + deflatedBinary + " bytes, deflated JSON " + deflatedJson + " bytes",
+                deflatedBinary < deflatedJson);
+    }
+
+    private void assertRoundTrip(GameState gameState, BinaryGameStateDecoder decoder) {
+        assertEquals(gson.toJsonTree(gameState), decoder.decode(encoder.encode(gameState)));
+    }
+
+    private DTOPlayer player(int handle, String json) {
+        DTOPlayer player = gson.fromJson(json, DTOPlayer.class);
+        player.handle = handle;
+        handles.put(player.entityID, handle);
+        return player;
+    }
+
+    private DTONpc npc(int handle, String json) {
+        DTONpc npc = gson.fromJson(json, DTONpc.class);
+        npc.handle = handle;
+        handles.put(npc.entityID, handle);
+        return npc;
+    }
+
+    private Item item(int handle, String uniqueID, int itemID, int x, int y) {
+        Item item = new Item(itemID, "Coins", "Shiny", false, true, "coins", 1);
+        item.setUniqueID(uniqueID);
+        item.setAmount(250);
+        item.setWorldX(x);
+        item.setWorldY(y);
+        item.handle = handle;
+        handles.put(uniqueID, handle);
+        return item;
+    }
+}
@@ -0,0 +1,187 @@
+package com.g8e.gameserver.network.encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.g8e.gameserver.enums.Direction;
+import com.g8e.gameserver.models.ChatMessage;
+import com.g8e.gameserver.models.events.AttackEvent;
+import com.g8e.gameserver.models.events.SoundEvent;
+import com.g8e.gameserver.models.events.TalkEvent;
+import com.g8e.gameserver.models.events.TradeEvent;
+import com.g8e.gameserver.network.GameState;
+import com.g8e.gameserver.network.dataTransferModels.DTOItem;
+import com.g8e.gameserver.network.dataTransferModels.DTONpc;
+import com.g8e.gameserver.network.dataTransferModels.DTOPlayer;
+import com.google.gson.Gson;
+
+public class JsonGameStateEncoderTest {
+    private static final String TRICKY = "<script>alert('x' & \"y\")</script>=\\ \t\b\n\r\f\u0000\u001f\u007f"
+            + "\u00e9 \u20ac \u2028 \u2029 \ud83d\ude00 \ud800 end";
+
+    private final Gson gson = new Gson();
+    private final JsonGameStateEncoder encoder = new JsonGameStateEncoder();
+
+    @Test
+    public void emptyStateMatchesGson() {
+        assertSameAsGson(new GameState(null, null, null, null, null, null, null, null, null, null));
+        assertSameAsGson(new GameState(List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(), "", List.of()));
+    }
+
+    @Test
+    public void escapingAndExtremeValuesMatchGson() {
+        DTOPlayer player = filled(DTOPlayer.class, 1);
+        player.username = TRICKY;
+        player.attackStyle = null;
+        player.inventory = new int[] { Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE };
+        player.worldX = Integer.MIN_VALUE;
+        player.lastDamageDealt = Integer.MAX_VALUE;
+
+        DTONpc npc = filled(DTONpc.class, 2);
+        npc.currentHitpoints = Integer.MIN_VALUE;
+        npc.facingDirection = null;
+
+        List<String> onlinePlayers = new ArrayList<>(Arrays.asList(TRICKY, null, ""));
+        GameState gameState = new GameState(
+                List.of(new AttackEvent(TRICKY, null)),
+                List.of(new TalkEvent(null, TRICKY, Integer.MIN_VALUE)),
+                List.of(new TradeEvent("a", "b", Integer.MAX_VALUE)),
+                List.of(new SoundEvent(TRICKY, true, false, null, true)),
+                List.of(player), List.of(npc),
+                List.of(new ChatMessage(TRICKY, TRICKY, Long.MIN_VALUE, true),
+                        new ChatMessage(null, null, Long.MAX_VALUE, false)),
+                List.of(filled(DTOItem.class, 3)), TRICKY, onlinePlayers);
+        gameState.setOutOfRangeNpcs(List.of("npc_1", TRICKY));
+
+        assertSameAsGson(gameState);
+    }
+
+    // Every field of the DTOs is set, so a field added to a DTO but not to
+    // the encoder makes this fail
+    @Test
+    public void everyDtoFieldIsWritten() {
+        for (int seed = 0; seed < 3; seed++) {
+            GameState gameState = new GameState(null, null, null, null,
+                    List.of(filled(DTOPlayer.class, seed)), List.of(filled(DTONpc.class, seed)), null,
+                    List.of(filled(DTOItem.class, seed)), "player", List.of("player"));
+            assertSameAsGson(gameState);
+        }
+    }
+
+    @Test
+    public void randomStatesMatchGson() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            List<DTOPlayer> players = new ArrayList<>();
+            List<DTONpc> npcs = new ArrayList<>();
+            List<DTOItem> items = new ArrayList<>();
+            List<ChatMessage> chatMessages = new ArrayList<>();
+            for (int j = random.nextInt(5); j > 0; j--) {
+                players.add(sparse(filled(DTOPlayer.class, random.nextInt()), random));
+                npcs.add(sparse(filled(DTONpc.class, random.nextInt()), random));
+                items.add(sparse(filled(DTOItem.class, random.nextInt()), random));
+                chatMessages.add(new ChatMessage(randomString(random), randomString(random), random.nextLong(),
+                        random.nextBoolean()));
+            }
+
+            GameState gameState = new GameState(
+                    random.nextBoolean() ? null : List.of(new AttackEvent(randomString(random), "npc")),
+                    null, null,
+                    random.nextBoolean() ? null
+                            : List.of(new SoundEvent(randomString(random), random.nextBoolean(),
+                                    random.nextBoolean(), "npc", random.nextBoolean())),
+                    players, npcs, chatMessages, items, random.nextBoolean() ? null : randomString(random),
+                    List.of(randomString(random)));
+            assertSameAsGson(gameState);
+        }
+    }
+
+    // Compared as the UTF-8 bytes that were sent before, where an unpaired
+    // surrogate becomes '?'
+    private void assertSameAsGson(GameState gameState) {
+        byte[] expected = gson.toJson(gameState).getBytes(StandardCharsets.UTF_8);
+        assertEquals(new String(expected, StandardCharsets.UTF_8),
+                new String(encoder.encode(gameState), StandardCharsets.UTF_8));
+    }
+
+    // Instance with every serialized field set to a value derived from the seed
+    private <T> T filled(Class<T> type, int seed) {
+        T instance = gson.fromJson("{}", type);
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+
+            field.setAccessible(true);
+            Class<?> fieldType = field.getType();
+            Object value;
+            if (fieldType == Integer.class || fieldType == int.class) {
+                value = seed * 31 + field.getName().length();
+            } else if (fieldType == Boolean.class || fieldType == boolean.class) {
+                value = (seed + field.getName().length()) % 2 == 0;
+            } else if (fieldType == String.class) {
+                value = field.getName() + "_" + seed;
+            } else if (fieldType == int[].class) {
+                value = new int[] { seed, -seed, field.getName().length() };
+            } else if (fieldType == Direction.class) {
+                value = Direction.values()[Math.floorMod(seed, Direction.values().length)];
+            } else {
+                fail("No sample value for " + type.getSimpleName() + "." + field.getName()
+                        + ", add its type here and to JsonGameStateEncoder");
+                return null;
+            }
+
+            try {
+                field.set(instance, value);
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return instance;
+    }
+
+    // Clears some fields, like the deltas of a tick where little changed
+    private <T> T sparse(T instance, Random random) {
+        for (Field field : instance.getClass().getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.getType().isPrimitive()
+                    || random.nextBoolean()) {
+                continue;
+            }
+
+            field.setAccessible(true);
+            try {
+                field.set(instance, null);
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return instance;
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = random.nextInt(12); i > 0; i--) {
+            int pick = random.nextInt(4);
+            if (pick == 0) {
+                builder.append(TRICKY.charAt(random.nextInt(TRICKY.length())));
+            } else if (pick == 1) {
+                builder.append((char) random.nextInt(0x20));
+            } else {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return builder.toString();
+    }
+}